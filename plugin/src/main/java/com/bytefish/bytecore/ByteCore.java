@@ -3,6 +3,7 @@ package com.bytefish.bytecore;
 import com.bytefish.bytecore.api.ApiServer;
 import com.bytefish.bytecore.commands.*;
 import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.ledger.TransactionLedger;
 import com.bytefish.bytecore.listeners.*;
 import com.bytefish.bytecore.managers.*;
 import net.kyori.adventure.text.Component;
@@ -13,6 +14,8 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class ByteCore extends JavaPlugin {
 
 	private ConfigManager configManager;
+	private SignRegistry signRegistry;
+	private TransactionLedger transactionLedger;
 	private ShopManager shopManager;
 	private LocationManager locationManager;
 	private WarningManager warningManager;
@@ -25,6 +28,9 @@ public class ByteCore extends JavaPlugin {
 		}
 
 		configManager = new ConfigManager(this);
+		signRegistry = new SignRegistry();
+		transactionLedger = new TransactionLedger(this, configManager);
+		transactionLedger.start();
 		shopManager = new ShopManager(this, configManager);
 		locationManager = new LocationManager(this);
 		warningManager = new WarningManager(this);
@@ -40,25 +46,6 @@ public class ByteCore extends JavaPlugin {
 		);
 		apiServer.start();
 
-		if (shopManager != null && configManager.isDisplayItemsEnabled()) {
-			getServer()
-				.getScheduler()
-				.runTaskLater(
-					this,
-					() -> {
-						shopManager.cleanupDisplayItems();
-						getServer()
-							.getScheduler()
-							.runTaskLater(
-								this,
-								() -> shopManager.recreateAllDisplayItems(),
-								20L
-							);
-					},
-					40L
-				);
-		}
-
 		getLogger().info("ByteCore enabled successfully!");
 	}
 
@@ -72,6 +59,9 @@ public class ByteCore extends JavaPlugin {
 			shopManager.cleanup();
 			shopManager.saveAll();
 		}
+		if (transactionLedger != null) {
+			transactionLedger.shutdown();
+		}
 		if (locationManager != null) {
 			locationManager.saveAll();
 		}
@@ -92,6 +82,11 @@ public class ByteCore extends JavaPlugin {
 			new CheckLocationsCommand(locationManager)
 		);
 		getCommand("itemname").setExecutor(new ItemNameCommand());
+		getCommand("shopfind").setExecutor(new ShopFindCommand(shopManager));
+		getCommand("shopnear").setExecutor(new ShopNearCommand(shopManager));
+		getCommand("shophistory").setExecutor(
+			new ShopHistoryCommand(this, shopManager, transactionLedger)
+		);
 		// getCommand("shopfix").setExecutor(new ShopFixCommand());
 	}
 
@@ -106,11 +101,14 @@ public class ByteCore extends JavaPlugin {
 			new ShopInteractionListener(shopManager, configManager),
 			this
 		);
-		pm.registerEvents(new ShopProtectionListener(shopManager), this);
+		pm.registerEvents(
+			new ShopProtectionListener(shopManager, configManager),
+			this
+		);
 
 		pm.registerEvents(new LocationSignListener(locationManager), this);
 		pm.registerEvents(
-			new LocationSignDestroyListener(locationManager),
+			new LocationSignDestroyListener(locationManager, configManager),
 			this
 		);
 
@@ -119,8 +117,19 @@ public class ByteCore extends JavaPlugin {
 		pm.registerEvents(new TabListListener(configManager), this);
 
 		pm.registerEvents(new CommandCompletionListener(this), this);
-		pm.registerEvents(new ShopDisplayProtectionListener(), this);
+		pm.registerEvents(
+			new ShopDisplayProtectionListener(shopManager.getDisplayTags()),
+			this
+		);
 		pm.registerEvents(new ChunkLoadListener(shopManager), this);
+		if (configManager.isDisplayItemsEnabled()) {
+			pm.registerEvents(
+				new DisplayBlockChangeListener(
+					shopManager.getVisibilityEngine()
+				),
+				this
+			);
+		}
 
 		getServer()
 			.getScheduler()
@@ -136,6 +145,14 @@ public class ByteCore extends JavaPlugin {
 		return configManager;
 	}
 
+	public SignRegistry getSignRegistry() {
+		return signRegistry;
+	}
+
+	public TransactionLedger getTransactionLedger() {
+		return transactionLedger;
+	}
+
 	public ShopManager getShopManager() {
 		return shopManager;
 	}
@@ -2,7 +2,11 @@ package com.bytefish.bytecore.api;
 
 import com.bytefish.bytecore.ByteCore;
 import com.bytefish.bytecore.api.websocket.WebSocketHandler;
+import com.bytefish.bytecore.ledger.LedgerPage;
+import com.bytefish.bytecore.ledger.LedgerQuery;
+import com.bytefish.bytecore.ledger.LedgerRecord;
 import com.bytefish.bytecore.managers.*;
+import com.bytefish.bytecore.models.Shop;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.util.*;
@@ -11,6 +15,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.World;
+import org.bukkit.enchantments.Enchantment;
 import spark.Spark;
 
 public class ApiServer {
@@ -138,6 +148,181 @@ public class ApiServer {
 			return gson.toJson(stats);
 		});
 
+		Spark.get("/api/metrics", (request, response) -> {
+			Map<String, Object> metrics = new HashMap<>();
+			metrics.put("displays", shopManager.getDisplayMetrics());
+			metrics.put("shops", shopManager.getShopMetrics());
+			metrics.put("ledger", plugin.getTransactionLedger().getMetrics());
+			return gson.toJson(metrics);
+		});
+
+		Spark.get("/api/shops", (request, response) -> {
+			Material selling = null;
+			Material price = null;
+			Enchantment enchantment = null;
+			UUID owner = null;
+			try {
+				if (request.queryParams("selling") != null) {
+					selling = parseMaterial(request.queryParams("selling"));
+				}
+				if (request.queryParams("price") != null) {
+					price = parseMaterial(request.queryParams("price"));
+				}
+				if (request.queryParams("enchantment") != null) {
+					enchantment = parseEnchantment(
+						request.queryParams("enchantment")
+					);
+				}
+				if (request.queryParams("owner") != null) {
+					owner = UUID.fromString(request.queryParams("owner"));
+				}
+			} catch (IllegalArgumentException e) {
+				response.status(400);
+				return gson.toJson(
+					Map.of("error", "Bad request", "message", e.getMessage())
+				);
+			}
+
+			List<Shop> shops;
+			if (selling != null || price != null || enchantment != null) {
+				shops = shopManager.findShops(selling, enchantment, price);
+				if (owner != null) {
+					UUID ownerId = owner;
+					shops = shops
+						.stream()
+						.filter(shop -> shop.getOwnerUUID().equals(ownerId))
+						.collect(Collectors.toList());
+				}
+			} else if (owner != null) {
+				shops = shopManager.getShopsByOwner(owner);
+			} else {
+				shops = shopManager.getAllShops();
+			}
+
+			return gson.toJson(
+				shops
+					.stream()
+					.map(this::toShopData)
+					.collect(Collectors.toList())
+			);
+		});
+
+		Spark.get("/api/shops/nearest", (request, response) -> {
+			World world = request.queryParams("world") != null
+				? Bukkit.getWorld(request.queryParams("world"))
+				: null;
+			if (world == null) {
+				response.status(400);
+				return gson.toJson(
+					Map.of(
+						"error",
+						"Bad request",
+						"message",
+						"Unknown or missing world"
+					)
+				);
+			}
+
+			Location origin;
+			int limit;
+			double radius;
+			Material selling = null;
+			try {
+				origin = new Location(
+					world,
+					requireDouble("x", request.queryParams("x")),
+					parseDouble("y", request.queryParams("y"), 64),
+					requireDouble("z", request.queryParams("z"))
+				);
+				limit = parseInt("limit", request.queryParams("limit"), 10);
+				radius = parseDouble(
+					"radius",
+					request.queryParams("radius"),
+					Double.POSITIVE_INFINITY
+				);
+				// Infinite only by default: the search squares the radius
+				if (
+					request.queryParams("radius") != null &&
+					!(radius > 0 && Double.isFinite(radius))
+				) {
+					throw new IllegalArgumentException(
+						"Expected a positive radius: " +
+						request.queryParams("radius")
+					);
+				}
+				if (request.queryParams("selling") != null) {
+					selling = parseMaterial(request.queryParams("selling"));
+				}
+			} catch (IllegalArgumentException e) {
+				response.status(400);
+				return gson.toJson(
+					Map.of("error", "Bad request", "message", e.getMessage())
+				);
+			}
+
+			long start = System.nanoTime();
+			List<ShopRegistry.Nearby> nearby = shopManager.findNearestShops(
+				origin,
+				Math.max(1, Math.min(limit, 100)),
+				radius,
+				selling
+			);
+			long tookMicros = (System.nanoTime() - start) / 1000;
+
+			List<Map<String, Object>> shops = new ArrayList<>();
+			for (ShopRegistry.Nearby entry : nearby) {
+				Map<String, Object> shopData = toShopData(entry.shop());
+				shopData.put("distance", Math.sqrt(entry.distanceSquared()));
+				shops.add(shopData);
+			}
+			return gson.toJson(Map.of("shops", shops, "tookMicros", tookMicros));
+		});
+
+		// Unauthenticated, so buyers stay anonymous here; who bought what is
+		// only shown in game, to the shop's owner (see /shophistory)
+		Spark.get("/api/shops/:id/transactions", (request, response) -> {
+			LedgerQuery query;
+			try {
+				String item = request.queryParams("item") != null
+					? parseMaterial(request.queryParams("item"))
+						.getKey()
+						.toString()
+					: null;
+				query = new LedgerQuery(
+					UUID.fromString(request.params(":id")),
+					null,
+					item,
+					parseLong(request.queryParams("from"), 0),
+					parseLong(request.queryParams("to"), Long.MAX_VALUE),
+					parseLong(request.queryParams("cursor"), Long.MAX_VALUE),
+					(int) parseLong(request.queryParams("limit"), 50)
+				);
+			} catch (IllegalArgumentException e) {
+				response.status(400);
+				return gson.toJson(
+					Map.of("error", "Bad request", "message", e.getMessage())
+				);
+			}
+
+			long start = System.nanoTime();
+			LedgerPage page = plugin.getTransactionLedger().query(query);
+			long tookMicros = (System.nanoTime() - start) / 1000;
+
+			Map<String, Object> result = new HashMap<>();
+			result.put(
+				"transactions",
+				page
+					.records()
+					.stream()
+					.map(ApiServer::toTransactionData)
+					.collect(Collectors.toList())
+			);
+			result.put("nextCursor", page.nextCursor());
+			result.put("blocksRead", page.blocksRead());
+			result.put("tookMicros", tookMicros);
+			return gson.toJson(result);
+		});
+
 		Spark.get("/api/warnings", (request, response) -> {
 			List<Map<String, Object>> warnings = warningManager
 				.getAllWarnings()
@@ -218,6 +403,114 @@ public class ApiServer {
 		});
 	}
 
+	private Map<String, Object> toShopData(Shop shop) {
+		Map<String, Object> shopData = new HashMap<>();
+		shopData.put("id", shop.getId().toString());
+		shopData.put("owner", shop.getOwnerName());
+		shopData.put("ownerUuid", shop.getOwnerUUID().toString());
+		shopData.put("world", shop.getWorldName());
+		shopData.put("x", shop.getBlockX());
+		shopData.put("y", shop.getBlockY());
+		shopData.put("z", shop.getBlockZ());
+		shopData.put("selling", shop.getSellingType().getKey().toString());
+		shopData.put("sellingAmount", shop.getSellingAmount());
+		shopData.put(
+			"enchantments",
+			ShopIndex.enchantmentsOf(shop.getSellingTemplate())
+				.stream()
+				.map(enchantment -> enchantment.getKey().toString())
+				.sorted()
+				.collect(Collectors.toList())
+		);
+		shopData.put("price", shop.getPriceType().getKey().toString());
+		shopData.put("priceAmount", shop.getPriceAmount());
+
+		// Counters from the last purchase or owner edit, never a live count
+		ShopStockCache.Level level = shopManager.peekStockLevel(shop);
+		if (level != null) {
+			shopData.put("stock", level.stock());
+			shopData.put("lotsInStock", level.lotsInStock(shop));
+			shopData.put("paymentSpace", level.paymentSpace());
+			shopData.put("stockCountedAt", level.countedAt());
+		}
+		return shopData;
+	}
+
+	private static Map<String, Object> toTransactionData(LedgerRecord record) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("id", record.transactionId().toString());
+		data.put("sequence", record.sequence());
+		data.put("timestamp", record.timestamp());
+		data.put("shop", record.shopId().toString());
+		data.put("ownerUuid", record.ownerId().toString());
+		data.put("status", record.status().name());
+		data.put("lots", record.lots());
+		data.put("selling", record.selling());
+		data.put("sellingAmount", record.sellingAmount());
+		data.put("price", record.price());
+		data.put("priceAmount", record.priceAmount());
+		if (record.failureReason() != null) {
+			data.put("failureReason", record.failureReason());
+		}
+		return data;
+	}
+
+	private static long parseLong(String value, long fallback) {
+		return value != null ? Long.parseLong(value) : fallback;
+	}
+
+	private static double requireDouble(String name, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Missing " + name);
+		}
+		return parseDouble(name, value, 0);
+	}
+
+	private static double parseDouble(
+		String name,
+		String value,
+		double fallback
+	) {
+		if (value == null) return fallback;
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+				"Expected a number for " + name + ": " + value
+			);
+		}
+	}
+
+	private static int parseInt(String name, String value, int fallback) {
+		if (value == null) return fallback;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+				"Expected a whole number for " + name + ": " + value
+			);
+		}
+	}
+
+	private static Material parseMaterial(String name) {
+		Material material = Material.matchMaterial(name);
+		if (material == null || !material.isItem()) {
+			throw new IllegalArgumentException("Unknown item: " + name);
+		}
+		return material;
+	}
+
+	private static Enchantment parseEnchantment(String name) {
+		NamespacedKey key = NamespacedKey.fromString(name.toLowerCase());
+		Enchantment enchantment = key != null
+			? Registry.ENCHANTMENT.get(key)
+			: null;
+		if (enchantment == null) {
+			throw new IllegalArgumentException("Unknown enchantment: " + name);
+		}
+		return enchantment;
+	}
+
 	public void stop() {
 		if (!isRunning) {
 			return;
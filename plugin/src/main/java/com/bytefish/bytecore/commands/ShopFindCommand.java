@@ -0,0 +1,174 @@
+package com.bytefish.bytecore.commands;
+
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.util.StringUtils;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+public class ShopFindCommand implements CommandExecutor {
+
+	private static final int MAX_RESULTS = 10;
+
+	private final ShopManager shopManager;
+
+	public ShopFindCommand(ShopManager shopManager) {
+		this.shopManager = shopManager;
+	}
+
+	@Override
+	public boolean onCommand(
+		@NotNull CommandSender sender,
+		@NotNull Command command,
+		@NotNull String label,
+		String[] args
+	) {
+		if (args.length < 1 || args.length > 2) {
+			sender.sendMessage(
+				Component.text("Usage: /shopfind <item> [enchantment]").color(
+					NamedTextColor.RED
+				)
+			);
+			return true;
+		}
+
+		Material material = Material.matchMaterial(args[0]);
+		if (material == null || !material.isItem()) {
+			sender.sendMessage(
+				Component.text("Unknown item: " + args[0]).color(
+					NamedTextColor.RED
+				)
+			);
+			return true;
+		}
+
+		Enchantment enchantment = null;
+		if (args.length == 2) {
+			NamespacedKey key = NamespacedKey.fromString(
+				args[1].toLowerCase()
+			);
+			enchantment = key != null ? Registry.ENCHANTMENT.get(key) : null;
+			if (enchantment == null) {
+				sender.sendMessage(
+					Component.text("Unknown enchantment: " + args[1]).color(
+						NamedTextColor.RED
+					)
+				);
+				return true;
+			}
+		}
+
+		List<Shop> shops = new ArrayList<>(
+			shopManager.findShops(material, enchantment, null)
+		);
+		if (shops.isEmpty()) {
+			sender.sendMessage(
+				Component.text("No shops are selling that.").color(
+					NamedTextColor.YELLOW
+				)
+			);
+			return true;
+		}
+
+		// Closest first for players, shops in other worlds last
+		if (sender instanceof Player player) {
+			Location origin = player.getLocation();
+			shops.sort(
+				Comparator.comparingDouble(shop ->
+					distanceSquared(origin, shop)
+				)
+			);
+		}
+
+		sender.sendMessage(
+			Component.text()
+				.append(
+					Component.text(
+						"Shops selling " +
+						StringUtils.formatItemName(material, 1) +
+						" (" +
+						shops.size() +
+						")",
+						NamedTextColor.GOLD
+					).decorate(TextDecoration.BOLD)
+				)
+				.build()
+		);
+
+		int shown = Math.min(MAX_RESULTS, shops.size());
+		for (Shop shop : shops.subList(0, shown)) {
+			sender.sendMessage(formatShop(shop));
+		}
+		if (shops.size() > MAX_RESULTS) {
+			sender.sendMessage(
+				Component.text(
+					"...and " + (shops.size() - MAX_RESULTS) + " more"
+				).color(NamedTextColor.GRAY)
+			);
+		}
+		return true;
+	}
+
+	private Component formatShop(Shop shop) {
+		return Component.text()
+			.append(
+				Component.text(
+					shop.getSellingAmount() + "× for ",
+					NamedTextColor.YELLOW
+				)
+			)
+			.append(
+				Component.text(
+					shop.getPriceAmount() +
+					"× " +
+					StringUtils.formatItemName(shop.getPriceType(), 1),
+					NamedTextColor.AQUA
+				)
+			)
+			.append(
+				Component.text(
+					" - " + shop.getOwnerName(),
+					NamedTextColor.WHITE
+				)
+			)
+			.append(
+				Component.text(
+					" at " +
+					shop.getBlockX() +
+					", " +
+					shop.getBlockY() +
+					", " +
+					shop.getBlockZ() +
+					" (" +
+					shop.getWorldName() +
+					")",
+					NamedTextColor.GRAY
+				)
+			)
+			.build();
+	}
+
+	private static double distanceSquared(Location origin, Shop shop) {
+		if (!shop.getWorldName().equals(origin.getWorld().getName())) {
+			return Double.MAX_VALUE;
+		}
+		double dx = shop.getBlockX() - origin.getX();
+		double dy = shop.getBlockY() - origin.getY();
+		double dz = shop.getBlockZ() - origin.getZ();
+		return dx * dx + dy * dy + dz * dz;
+	}
+}
@@ -175,6 +175,18 @@ public class ShopHelpCommand implements CommandExecutor {
 
 		sender.sendMessage(Component.empty());
 
+		sender.sendMessage(
+			Component.text()
+				.append(Component.text("Tip: ", NamedTextColor.YELLOW))
+				.append(
+					Component.text(
+						"Sneak while clicking a shop to buy as many as you can",
+						NamedTextColor.GRAY
+					)
+				)
+				.build()
+		);
+
 		sender.sendMessage(
 			Component.text()
 				.append(Component.text("Note: ", NamedTextColor.YELLOW))
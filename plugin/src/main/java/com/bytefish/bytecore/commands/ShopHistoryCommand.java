@@ -0,0 +1,297 @@
+package com.bytefish.bytecore.commands;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.ledger.LedgerPage;
+import com.bytefish.bytecore.ledger.LedgerQuery;
+import com.bytefish.bytecore.ledger.LedgerRecord;
+import com.bytefish.bytecore.ledger.TransactionLedger;
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.models.ShopTransaction.TransactionStatus;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Level;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.block.Block;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shows ledger history: sales of the shop you are looking at, otherwise
+ * your own purchases, or with a name or shop id the history of that player
+ * or shop. Queries read the ledger off the main thread.
+ */
+public class ShopHistoryCommand implements CommandExecutor {
+
+	private static final int PAGE_SIZE = 10;
+	private static final String OTHERS_PERMISSION =
+		"bytecore.shophistory.others";
+
+	private final ByteCore plugin;
+	private final ShopManager shopManager;
+	private final TransactionLedger ledger;
+
+	public ShopHistoryCommand(
+		ByteCore plugin,
+		ShopManager shopManager,
+		TransactionLedger ledger
+	) {
+		this.plugin = plugin;
+		this.shopManager = shopManager;
+		this.ledger = ledger;
+	}
+
+	@Override
+	public boolean onCommand(
+		@NotNull CommandSender sender,
+		@NotNull Command command,
+		@NotNull String label,
+		String[] args
+	) {
+		if (args.length > 2) {
+			sender.sendMessage(
+				Component.text(
+					"Usage: /shophistory [player|shop id] [cursor]"
+				).color(NamedTextColor.RED)
+			);
+			return true;
+		}
+
+		long cursor = Long.MAX_VALUE;
+		if (args.length == 2) {
+			try {
+				cursor = Long.parseLong(args[1]);
+			} catch (NumberFormatException e) {
+				sender.sendMessage(
+					Component.text("Invalid cursor: " + args[1]).color(
+						NamedTextColor.RED
+					)
+				);
+				return true;
+			}
+		}
+
+		LedgerQuery query;
+		String target;
+		String title;
+		UUID requiredOwner = null;
+		if (args.length == 0) {
+			if (!(sender instanceof Player player)) {
+				sender.sendMessage(
+					Component.text(
+						"Usage: /shophistory <player|shop id> [cursor]"
+					).color(NamedTextColor.RED)
+				);
+				return true;
+			}
+			Shop shop = targetShop(player);
+			if (shop != null) {
+				query = LedgerQuery.forShop(shop.getId(), PAGE_SIZE);
+				target = shop.getId().toString();
+				title = "Sales at " + shop.getOwnerName() + "'s shop";
+				requiredOwner = player.getUniqueId();
+			} else {
+				query = LedgerQuery.forBuyer(player.getUniqueId(), PAGE_SIZE);
+				target = player.getName();
+				title = "Your purchases";
+			}
+		} else if (parseUuid(args[0]) != null) {
+			UUID shopId = parseUuid(args[0]);
+			query = LedgerQuery.forShop(shopId, PAGE_SIZE);
+			target = shopId.toString();
+			title = "Sales at shop " + shopId.toString().substring(0, 8);
+			// Shops can be gone, so ownership is checked on the records
+			requiredOwner = sender instanceof Player player
+				? player.getUniqueId()
+				: null;
+		} else {
+			OfflinePlayer buyer = Bukkit.getOfflinePlayerIfCached(args[0]);
+			if (buyer == null) {
+				sender.sendMessage(
+					Component.text("Unknown player: " + args[0]).color(
+						NamedTextColor.RED
+					)
+				);
+				return true;
+			}
+			if (
+				sender instanceof Player player &&
+				!player.getUniqueId().equals(buyer.getUniqueId()) &&
+				!player.hasPermission(OTHERS_PERMISSION)
+			) {
+				sender.sendMessage(
+					Component.text(
+						"You can only view your own purchases."
+					).color(NamedTextColor.RED)
+				);
+				return true;
+			}
+			query = LedgerQuery.forBuyer(buyer.getUniqueId(), PAGE_SIZE);
+			target = buyer.getName();
+			title = "Purchases by " + buyer.getName();
+		}
+
+		if (
+			requiredOwner != null && sender.hasPermission(OTHERS_PERMISSION)
+		) {
+			requiredOwner = null;
+		}
+
+		LedgerQuery page = query.before(cursor);
+		UUID owner = requiredOwner;
+		Bukkit.getScheduler()
+			.runTaskAsynchronously(plugin, () ->
+				showPage(sender, page, target, title, owner)
+			);
+		return true;
+	}
+
+	private void showPage(
+		CommandSender sender,
+		LedgerQuery query,
+		String target,
+		String title,
+		UUID requiredOwner
+	) {
+		LedgerPage page;
+		try {
+			page = ledger.query(query);
+		} catch (IOException e) {
+			plugin
+				.getLogger()
+				.log(Level.WARNING, "Failed to read shop history", e);
+			sender.sendMessage(
+				Component.text("Couldn't read the shop history.").color(
+					NamedTextColor.RED
+				)
+			);
+			return;
+		}
+
+		if (page.records().isEmpty()) {
+			sender.sendMessage(
+				Component.text("No transactions found.").color(
+					NamedTextColor.YELLOW
+				)
+			);
+			return;
+		}
+		if (
+			requiredOwner != null &&
+			!requiredOwner.equals(page.records().get(0).ownerId())
+		) {
+			sender.sendMessage(
+				Component.text("You can only view your own shops.").color(
+					NamedTextColor.RED
+				)
+			);
+			return;
+		}
+
+		sender.sendMessage(
+			Component.text(title, NamedTextColor.GOLD).decorate(
+				TextDecoration.BOLD
+			)
+		);
+		long now = System.currentTimeMillis();
+		for (LedgerRecord record : page.records()) {
+			sender.sendMessage(formatRecord(record, now));
+		}
+		if (page.nextCursor() != null) {
+			String next = "/shophistory " + target + " " + page.nextCursor();
+			sender.sendMessage(
+				Component.text("[Older]", NamedTextColor.AQUA).clickEvent(
+					ClickEvent.runCommand(next)
+				)
+			);
+		}
+	}
+
+	private Component formatRecord(LedgerRecord record, long now) {
+		String buyer = Bukkit.getOfflinePlayer(record.buyerId()).getName();
+		// Failed attempts show a single lot rather than the amount requested
+		int lots = record.status() == TransactionStatus.COMPLETED
+			? Math.max(1, record.lots())
+			: 1;
+		Component line = Component.text()
+			.append(
+				Component.text(
+					formatAge(now - record.timestamp()) + " ",
+					NamedTextColor.GRAY
+				)
+			)
+			.append(
+				Component.text(
+					(buyer != null ? buyer : "Unknown") + " ",
+					NamedTextColor.WHITE
+				)
+			)
+			.append(
+				Component.text(
+					lots * record.sellingAmount() +
+					"× " +
+					itemName(record.selling()),
+					NamedTextColor.YELLOW
+				)
+			)
+			.append(
+				Component.text(
+					" for " +
+					lots * record.priceAmount() +
+					"× " +
+					itemName(record.price()),
+					NamedTextColor.AQUA
+				)
+			)
+			.build();
+		if (record.status() == TransactionStatus.COMPLETED) {
+			return line;
+		}
+		return line
+			.decorate(TextDecoration.STRIKETHROUGH)
+			.append(
+				Component.text(
+					" " +
+					(record.failureReason() != null
+							? record.failureReason()
+							: record.status().name().toLowerCase()),
+					NamedTextColor.RED
+				).decoration(TextDecoration.STRIKETHROUGH, false)
+			);
+	}
+
+	private Shop targetShop(Player player) {
+		Block block = player.getTargetBlockExact(5);
+		if (block == null) return null;
+		Shop shop = shopManager.getShop(block);
+		return shop != null ? shop : shopManager.getShopForSign(block);
+	}
+
+	private static UUID parseUuid(String value) {
+		try {
+			return UUID.fromString(value);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static String itemName(String key) {
+		return key.substring(key.indexOf(':') + 1).replace('_', ' ');
+	}
+
+	private static String formatAge(long millis) {
+		long minutes = millis / 60_000;
+		if (minutes < 1) return "now";
+		if (minutes < 60) return minutes + "m ago";
+		if (minutes < 24 * 60) return minutes / 60 + "h ago";
+		return minutes / (24 * 60) + "d ago";
+	}
+}
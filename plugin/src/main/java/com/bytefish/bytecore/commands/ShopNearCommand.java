@@ -0,0 +1,133 @@
+package com.bytefish.bytecore.commands;
+
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.managers.ShopRegistry;
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.util.StringUtils;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Material;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+public class ShopNearCommand implements CommandExecutor {
+
+	private static final int MAX_RESULTS = 5;
+
+	private final ShopManager shopManager;
+
+	public ShopNearCommand(ShopManager shopManager) {
+		this.shopManager = shopManager;
+	}
+
+	@Override
+	public boolean onCommand(
+		@NotNull CommandSender sender,
+		@NotNull Command command,
+		@NotNull String label,
+		String[] args
+	) {
+		if (!(sender instanceof Player player)) {
+			sender.sendMessage(
+				Component.text(
+					"This command can only be executed by a player."
+				).color(NamedTextColor.RED)
+			);
+			return true;
+		}
+
+		if (args.length > 1) {
+			player.sendMessage(
+				Component.text("Usage: /shopnear [item]").color(
+					NamedTextColor.RED
+				)
+			);
+			return true;
+		}
+
+		Material selling = null;
+		if (args.length == 1) {
+			selling = Material.matchMaterial(args[0]);
+			if (selling == null || !selling.isItem()) {
+				player.sendMessage(
+					Component.text("Unknown item: " + args[0]).color(
+						NamedTextColor.RED
+					)
+				);
+				return true;
+			}
+		}
+
+		List<ShopRegistry.Nearby> nearby = shopManager.findNearestShops(
+			player.getLocation(),
+			MAX_RESULTS,
+			Double.POSITIVE_INFINITY,
+			selling
+		);
+		if (nearby.isEmpty()) {
+			player.sendMessage(
+				Component.text("No shops found in this world.").color(
+					NamedTextColor.YELLOW
+				)
+			);
+			return true;
+		}
+
+		player.sendMessage(
+			Component.text(
+				selling != null
+					? "Nearest shops selling " +
+					StringUtils.formatItemName(selling, 1)
+					: "Nearest shops",
+				NamedTextColor.GOLD
+			).decorate(TextDecoration.BOLD)
+		);
+
+		for (ShopRegistry.Nearby entry : nearby) {
+			Shop shop = entry.shop();
+			player.sendMessage(
+				Component.text()
+					.append(
+						Component.text(
+							Math.round(Math.sqrt(entry.distanceSquared())) +
+							"m ",
+							NamedTextColor.YELLOW
+						)
+					)
+					.append(
+						Component.text(
+							shop.getSellingAmount() +
+							"× " +
+							StringUtils.formatItemName(
+								shop.getSellingType(),
+								1
+							) +
+							" for " +
+							shop.getPriceAmount() +
+							"× " +
+							StringUtils.formatItemName(shop.getPriceType(), 1),
+							NamedTextColor.AQUA
+						)
+					)
+					.append(
+						Component.text(
+							" at " +
+							shop.getBlockX() +
+							", " +
+							shop.getBlockY() +
+							", " +
+							shop.getBlockZ(),
+							NamedTextColor.GRAY
+						)
+					)
+					.build()
+			);
+		}
+		return true;
+	}
+}
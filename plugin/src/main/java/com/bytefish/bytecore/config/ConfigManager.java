@@ -1,5 +1,7 @@
 package com.bytefish.bytecore.config;
 
+import com.bytefish.bytecore.display.DisplayBackend;
+import com.bytefish.bytecore.util.BlockClassifier;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -12,7 +14,12 @@ public class ConfigManager {
 	private final JavaPlugin plugin;
 	private final Set<Material> allowedContainers;
 	private Material defaultContainer;
+	private BlockClassifier blockClassifier;
 	private int protectionRadius;
+	private int bulkPurchaseMaxLots;
+	private boolean ledgerEnabled;
+	private int ledgerFsyncIntervalMillis;
+	private int ledgerSegmentSizeMb;
 	private int maxLocationsPerPlayer;
 	private String serverName;
 	private String serverWebsite;
@@ -25,6 +32,15 @@ public class ConfigManager {
 	private double displayItemFrequency;
 	private int displayViewDistance;
 	private int displayUpdateFrequency;
+	private int displayDespawnHysteresis;
+	private DisplayBackend displayBackend;
+	private int rayTraceBudgetMicros;
+	private int rayTraceMaxAgeMillis;
+	private int lineOfSightCacheSize;
+	private int lineOfSightCacheTtlMillis;
+	private int spawnBudgetMicros;
+	private boolean asyncVisibilityEnabled;
+	private int asyncVisibilityThreads;
 
 	public ConfigManager(JavaPlugin plugin) {
 		this.plugin = plugin;
@@ -37,6 +53,19 @@ public class ConfigManager {
 		FileConfiguration config = plugin.getConfig();
 		loadContainerSettings(config);
 		protectionRadius = config.getInt("shops.protection-radius", 2);
+		bulkPurchaseMaxLots = Math.max(
+			1,
+			config.getInt("shops.bulk-purchase-max-lots", 64)
+		);
+		ledgerEnabled = config.getBoolean("shops.ledger.enabled", true);
+		ledgerFsyncIntervalMillis = Math.max(
+			0,
+			config.getInt("shops.ledger.fsync-interval-ms", 1000)
+		);
+		ledgerSegmentSizeMb = Math.max(
+			1,
+			config.getInt("shops.ledger.segment-size-mb", 16)
+		);
 
 		maxLocationsPerPlayer = config.getInt("locations.max-per-player", 3);
 
@@ -75,6 +104,42 @@ public class ConfigManager {
 			"shops.display-items.update-frequency",
 			2
 		);
+		// Negative would despawn inside the spawn radius and churn every pass
+		displayDespawnHysteresis = Math.max(
+			0,
+			config.getInt("shops.display-items.despawn-hysteresis", 8)
+		);
+		displayBackend = DisplayBackend.fromConfig(
+			config.getString("shops.display-items.backend", "item")
+		);
+		rayTraceBudgetMicros = config.getInt(
+			"shops.display-items.raytrace-budget-us",
+			500
+		);
+		rayTraceMaxAgeMillis = config.getInt(
+			"shops.display-items.raytrace-max-age-ms",
+			1000
+		);
+		lineOfSightCacheSize = config.getInt(
+			"shops.display-items.los-cache-size",
+			4096
+		);
+		lineOfSightCacheTtlMillis = config.getInt(
+			"shops.display-items.los-cache-ttl-ms",
+			60000
+		);
+		spawnBudgetMicros = config.getInt(
+			"shops.display-items.spawn-budget-us",
+			1000
+		);
+		asyncVisibilityEnabled = config.getBoolean(
+			"shops.display-items.async-visibility.enabled",
+			false
+		);
+		asyncVisibilityThreads = Math.max(
+			1,
+			config.getInt("shops.display-items.async-visibility.threads", 2)
+		);
 	}
 
 	private void loadContainerSettings(FileConfiguration config) {
@@ -125,6 +190,7 @@ public class ConfigManager {
 		}
 
 		allowedContainers.add(Material.BARREL);
+		blockClassifier = new BlockClassifier(allowedContainers);
 	}
 
 	// Getter methods
@@ -140,6 +206,22 @@ public class ConfigManager {
 		return protectionRadius;
 	}
 
+	public int getBulkPurchaseMaxLots() {
+		return bulkPurchaseMaxLots;
+	}
+
+	public boolean isLedgerEnabled() {
+		return ledgerEnabled;
+	}
+
+	public int getLedgerFsyncIntervalMillis() {
+		return ledgerFsyncIntervalMillis;
+	}
+
+	public long getLedgerSegmentBytes() {
+		return ledgerSegmentSizeMb * 1024L * 1024L;
+	}
+
 	public int getMaxLocationsPerPlayer() {
 		return maxLocationsPerPlayer;
 	}
@@ -161,7 +243,11 @@ public class ConfigManager {
 	}
 
 	public boolean isValidShopContainer(Material material) {
-		return allowedContainers.contains(material);
+		return blockClassifier.isShopContainer(material);
+	}
+
+	public BlockClassifier getBlockClassifier() {
+		return blockClassifier;
 	}
 
 	public boolean isDisplayItemsEnabled() {
@@ -191,4 +277,40 @@ public class ConfigManager {
 	public int getDisplayUpdateFrequency() {
 		return displayUpdateFrequency;
 	}
+
+	public int getDisplayDespawnHysteresis() {
+		return displayDespawnHysteresis;
+	}
+
+	public DisplayBackend getDisplayBackend() {
+		return displayBackend;
+	}
+
+	public int getRayTraceBudgetMicros() {
+		return rayTraceBudgetMicros;
+	}
+
+	public int getRayTraceMaxAgeMillis() {
+		return rayTraceMaxAgeMillis;
+	}
+
+	public int getLineOfSightCacheSize() {
+		return lineOfSightCacheSize;
+	}
+
+	public int getLineOfSightCacheTtlMillis() {
+		return lineOfSightCacheTtlMillis;
+	}
+
+	public int getSpawnBudgetMicros() {
+		return spawnBudgetMicros;
+	}
+
+	public boolean isAsyncVisibilityEnabled() {
+		return asyncVisibilityEnabled;
+	}
+
+	public int getAsyncVisibilityThreads() {
+		return asyncVisibilityThreads;
+	}
 }
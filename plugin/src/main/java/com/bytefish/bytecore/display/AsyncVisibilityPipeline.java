@@ -0,0 +1,557 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+/**
+ * Computes name-tag visibility off the server thread. Once per update period
+ * the server thread runs the cheap distance and view-cone tests, then
+ * captures chunk snapshots only along the rays of the pairs that passed. A
+ * worker pool splits the viewers between its threads for the occlusion
+ * tests on that copy, and only the visibility changes are applied back on
+ * the server thread.
+ */
+public class AsyncVisibilityPipeline {
+
+	// Snapshots are reused between periods until a block changes or they get this old
+	private static final long SNAPSHOT_MAX_AGE_MILLIS = 1000L;
+
+	private final ByteCore plugin;
+	private final ShopManager shopManager;
+	private final DisplayVisibilityEngine engine;
+	private final ConfigManager config;
+	private final ExecutorService workers;
+	private final int threads;
+	private final AtomicBoolean inFlight = new AtomicBoolean();
+	private final boolean[] solidMaterials;
+	private final ChunkFilter watchedChunks;
+
+	// Server thread only
+	private final Map<ChunkRef, CapturedChunk> snapshotCache = new HashMap<>();
+
+	// Only touched when the single in-flight job merges its results
+	private Map<PairKey, Location> visiblePairs = new HashMap<>();
+
+	private volatile long lastCaptureNanos;
+	private volatile long lastComputeNanos;
+	private volatile int lastPairs;
+	private volatile int lastCandidates;
+	private volatile int lastChanges;
+	private volatile long snapshotsCaptured;
+	private volatile long snapshotsReused;
+	private volatile long skippedPeriods;
+
+	private record ChunkRef(UUID world, long chunk) {}
+
+	private record CapturedChunk(ChunkSnapshot snapshot, long capturedAt) {}
+
+	private record PairKey(UUID playerId, UUID displayId) {}
+
+	private record ViewerSnapshot(
+		UUID playerId,
+		UUID world,
+		double eyeX,
+		double eyeY,
+		double eyeZ,
+		List<DisplaySnapshot> candidates
+	) {}
+
+	private record DisplaySnapshot(
+		Location shopLoc,
+		UUID displayId,
+		double x,
+		double y,
+		double z
+	) {}
+
+	private record WorldBounds(int minY, int maxY) {}
+
+	private record Job(
+		List<ViewerSnapshot> viewers,
+		Map<ChunkRef, ChunkSnapshot> chunks,
+		Map<UUID, WorldBounds> bounds
+	) {}
+
+	private record Change(UUID playerId, Location shopLoc, boolean visible) {}
+
+	AsyncVisibilityPipeline(
+		ByteCore plugin,
+		ShopManager shopManager,
+		DisplayVisibilityEngine engine,
+		ConfigManager config,
+		ChunkFilter watchedChunks
+	) {
+		this.plugin = plugin;
+		this.shopManager = shopManager;
+		this.engine = engine;
+		this.config = config;
+		this.watchedChunks = watchedChunks;
+
+		this.threads = Math.max(1, config.getAsyncVisibilityThreads());
+		AtomicInteger threadId = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(
+				runnable,
+				"ByteCore-Visibility-" + threadId.incrementAndGet()
+			);
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Resolved on the server thread so workers never touch block data
+		Material[] materials = Material.values();
+		this.solidMaterials = new boolean[materials.length];
+		for (Material material : materials) {
+			solidMaterials[material.ordinal()] =
+				!material.isLegacy() && material.isBlock() && material.isSolid();
+		}
+	}
+
+	/**
+	 * Captures the pairs worth ray tracing and hands them to the workers.
+	 * Skipped while the previous period is still being computed.
+	 */
+	public void capture() {
+		if (!inFlight.compareAndSet(false, true)) {
+			skippedPeriods++;
+			return;
+		}
+
+		long start = System.nanoTime();
+		long now = System.currentTimeMillis();
+		List<ViewerSnapshot> viewers = new ArrayList<>();
+		int candidateCount = 0;
+		Map<ChunkRef, ChunkSnapshot> chunks = new HashMap<>();
+		Map<UUID, WorldBounds> bounds = new HashMap<>();
+		int pairs = 0;
+
+		for (Player player : plugin.getServer().getOnlinePlayers()) {
+			boolean bedrock = engine.isBedrock(player);
+			int viewDistance = bedrock
+				? Math.min(config.getDisplayViewDistance(), 32)
+				: config.getDisplayViewDistance();
+			Location eyeLoc = player.getEyeLocation();
+			World world = eyeLoc.getWorld();
+			Vector direction = eyeLoc.getDirection();
+			double maxDistanceSquared = (double) viewDistance * viewDistance;
+			double minCos = Math.cos(bedrock ? Math.PI / 3 : Math.PI / 4);
+
+			List<DisplaySnapshot> candidates = new ArrayList<>();
+			int chunkRadius = (viewDistance >> 4) + 1;
+			int eyeChunkX = eyeLoc.getBlockX() >> 4;
+			int eyeChunkZ = eyeLoc.getBlockZ() >> 4;
+			for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+				for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+					for (Location shopLoc : shopManager.getDisplayLocationsInChunk(
+						world,
+						eyeChunkX + dx,
+						eyeChunkZ + dz
+					)) {
+						ShopDisplay display = shopManager.getDisplay(shopLoc);
+						// Only enchanted items show a name tag
+						if (
+							display == null ||
+							!display.isValid() ||
+							!display.hasNameTag()
+						) {
+							continue;
+						}
+						pairs++;
+
+						// Snapshots are only worth taking for pairs in view
+						Location displayLoc = display.getLocation();
+						if (
+							!isInView(
+								eyeLoc,
+								direction,
+								displayLoc,
+								maxDistanceSquared,
+								minCos
+							)
+						) {
+							continue;
+						}
+						candidates.add(
+							new DisplaySnapshot(
+								shopLoc,
+								display.getId(),
+								displayLoc.getX(),
+								displayLoc.getY(),
+								displayLoc.getZ()
+							)
+						);
+						captureCorridor(
+							world,
+							eyeLoc,
+							displayLoc,
+							chunks,
+							now
+						);
+					}
+				}
+			}
+
+			bounds.computeIfAbsent(world.getUID(), id ->
+				new WorldBounds(world.getMinHeight(), world.getMaxHeight())
+			);
+			viewers.add(
+				new ViewerSnapshot(
+					player.getUniqueId(),
+					world.getUID(),
+					eyeLoc.getX(),
+					eyeLoc.getY(),
+					eyeLoc.getZ(),
+					candidates
+				)
+			);
+			candidateCount += candidates.size();
+		}
+		lastPairs = pairs;
+		lastCandidates = candidateCount;
+
+		snapshotCache
+			.values()
+			.removeIf(
+				captured -> now - captured.capturedAt() > SNAPSHOT_MAX_AGE_MILLIS
+			);
+		lastCaptureNanos = System.nanoTime() - start;
+
+		Job job = new Job(viewers, chunks, bounds);
+		try {
+			compute(job);
+		} catch (RejectedExecutionException e) {
+			inFlight.set(false);
+		}
+	}
+
+	/**
+	 * Drops the cached snapshot of a chunk after a block in it changed
+	 */
+	public void invalidateChunk(UUID world, int chunkX, int chunkZ) {
+		if (snapshotCache.isEmpty()) return;
+		snapshotCache.remove(
+			new ChunkRef(world, BlockKeys.chunkKey(chunkX, chunkZ))
+		);
+	}
+
+	/**
+	 * Adds every chunk with a cached snapshot to the cleared filter
+	 */
+	void markChunks() {
+		for (ChunkRef ref : snapshotCache.keySet()) {
+			watchedChunks.add(ref.world(), ref.chunk());
+		}
+	}
+
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put(
+			"captureMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastCaptureNanos)
+		);
+		metrics.put(
+			"computeMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastComputeNanos)
+		);
+		metrics.put("pairsEvaluated", lastPairs);
+		metrics.put("pairsRayTraced", lastCandidates);
+		metrics.put("changesApplied", lastChanges);
+		metrics.put("snapshotsCaptured", snapshotsCaptured);
+		metrics.put("snapshotsReused", snapshotsReused);
+		metrics.put("skippedPeriods", skippedPeriods);
+		metrics.put("inFlight", inFlight.get());
+		return metrics;
+	}
+
+	private static boolean isInView(
+		Location eyeLoc,
+		Vector direction,
+		Location displayLoc,
+		double maxDistanceSquared,
+		double minCos
+	) {
+		double dx = displayLoc.getX() - eyeLoc.getX();
+		double dy = displayLoc.getY() - eyeLoc.getY();
+		double dz = displayLoc.getZ() - eyeLoc.getZ();
+		double distanceSquared = dx * dx + dy * dy + dz * dz;
+		if (
+			distanceSquared > maxDistanceSquared || distanceSquared < 1.0E-6
+		) {
+			return false;
+		}
+		double cos =
+			(dx * direction.getX() +
+				dy * direction.getY() +
+				dz * direction.getZ()) /
+			Math.sqrt(distanceSquared);
+		return cos >= minCos;
+	}
+
+	private void captureCorridor(
+		World world,
+		Location from,
+		Location to,
+		Map<ChunkRef, ChunkSnapshot> chunks,
+		long now
+	) {
+		int minX = Math.min(from.getBlockX(), to.getBlockX()) >> 4;
+		int maxX = Math.max(from.getBlockX(), to.getBlockX()) >> 4;
+		int minZ = Math.min(from.getBlockZ(), to.getBlockZ()) >> 4;
+		int maxZ = Math.max(from.getBlockZ(), to.getBlockZ()) >> 4;
+
+		for (int x = minX; x <= maxX; x++) {
+			for (int z = minZ; z <= maxZ; z++) {
+				ChunkRef ref = new ChunkRef(
+					world.getUID(),
+					BlockKeys.chunkKey(x, z)
+				);
+				if (chunks.containsKey(ref) || !world.isChunkLoaded(x, z)) {
+					continue;
+				}
+
+				CapturedChunk captured = snapshotCache.get(ref);
+				if (
+					captured == null ||
+					now - captured.capturedAt() > SNAPSHOT_MAX_AGE_MILLIS
+				) {
+					captured = new CapturedChunk(
+						world
+							.getChunkAt(x, z)
+							.getChunkSnapshot(false, false, false),
+						now
+					);
+					snapshotCache.put(ref, captured);
+					watchedChunks.add(ref.world(), ref.chunk());
+					snapshotsCaptured++;
+				} else {
+					snapshotsReused++;
+				}
+				chunks.put(ref, captured.snapshot());
+			}
+		}
+	}
+
+	/**
+	 * Splits the viewers between the workers and merges their answers once
+	 * all of them are done
+	 */
+	private void compute(Job job) {
+		long start = System.nanoTime();
+		List<ViewerSnapshot> viewers = job.viewers();
+		int perWorker = Math.max(1, (viewers.size() + threads - 1) / threads);
+		List<CompletableFuture<Map<PairKey, Location>>> parts =
+			new ArrayList<>();
+		for (int from = 0; from < viewers.size(); from += perWorker) {
+			List<ViewerSnapshot> slice = viewers.subList(
+				from,
+				Math.min(from + perWorker, viewers.size())
+			);
+			parts.add(
+				CompletableFuture.supplyAsync(
+					() -> traceVisible(job, slice),
+					workers
+				)
+			);
+		}
+
+		CompletableFuture.allOf(
+			parts.toArray(new CompletableFuture<?>[0])
+		).whenComplete((ignored, error) -> {
+			try {
+				if (error != null) {
+					plugin
+						.getLogger()
+						.log(
+							Level.WARNING,
+							"Error computing display visibility",
+							error
+						);
+					return;
+				}
+				Map<PairKey, Location> nowVisible = new HashMap<>();
+				for (CompletableFuture<Map<PairKey, Location>> part : parts) {
+					nowVisible.putAll(part.join());
+				}
+				merge(nowVisible);
+				lastComputeNanos = System.nanoTime() - start;
+			} finally {
+				inFlight.set(false);
+			}
+		});
+	}
+
+	private Map<PairKey, Location> traceVisible(
+		Job job,
+		List<ViewerSnapshot> viewers
+	) {
+		Map<PairKey, Location> visible = new HashMap<>();
+		for (ViewerSnapshot viewer : viewers) {
+			WorldBounds bounds = job.bounds().get(viewer.world());
+			for (DisplaySnapshot display : viewer.candidates()) {
+				if (
+					!isOccluded(
+						job.chunks(),
+						viewer.world(),
+						bounds,
+						viewer.eyeX(),
+						viewer.eyeY(),
+						viewer.eyeZ(),
+						display.x(),
+						display.y(),
+						display.z()
+					)
+				) {
+					visible.put(
+						new PairKey(viewer.playerId(), display.displayId()),
+						display.shopLoc()
+					);
+				}
+			}
+		}
+		return visible;
+	}
+
+	private void merge(Map<PairKey, Location> nowVisible) {
+		// Removals first: a respawned display keeps its shop location under a
+		// new entity id, and hiding the old pair must not undo showing the new
+		List<Change> changes = new ArrayList<>();
+		visiblePairs.forEach((key, shopLoc) -> {
+			if (!nowVisible.containsKey(key)) {
+				changes.add(new Change(key.playerId(), shopLoc, false));
+			}
+		});
+		nowVisible.forEach((key, shopLoc) -> {
+			if (!visiblePairs.containsKey(key)) {
+				changes.add(new Change(key.playerId(), shopLoc, true));
+			}
+		});
+		visiblePairs = nowVisible;
+
+		if (!changes.isEmpty()) {
+			plugin
+				.getServer()
+				.getScheduler()
+				.runTask(plugin, () -> apply(changes));
+		} else {
+			lastChanges = 0;
+		}
+	}
+
+	private void apply(List<Change> changes) {
+		for (Change change : changes) {
+			Player player = plugin.getServer().getPlayer(change.playerId());
+			if (player == null) continue;
+			engine.applyLineOfSight(player, change.shopLoc(), change.visible());
+		}
+		lastChanges = changes.size();
+	}
+
+	/**
+	 * Walks the voxels between the eye and the display (Amanatides-Woo) and
+	 * reports whether any of them, other than the display's own, is solid
+	 */
+	private boolean isOccluded(
+		Map<ChunkRef, ChunkSnapshot> chunks,
+		UUID world,
+		WorldBounds bounds,
+		double x0,
+		double y0,
+		double z0,
+		double x1,
+		double y1,
+		double z1
+	) {
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+		double dz = z1 - z0;
+
+		int x = (int) Math.floor(x0);
+		int y = (int) Math.floor(y0);
+		int z = (int) Math.floor(z0);
+		int endX = (int) Math.floor(x1);
+		int endY = (int) Math.floor(y1);
+		int endZ = (int) Math.floor(z1);
+
+		int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+		int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+		int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+		double tDeltaX = dx != 0 ? Math.abs(1.0 / dx) : Double.MAX_VALUE;
+		double tDeltaY = dy != 0 ? Math.abs(1.0 / dy) : Double.MAX_VALUE;
+		double tDeltaZ = dz != 0 ? Math.abs(1.0 / dz) : Double.MAX_VALUE;
+		double tMaxX = boundaryDistance(x0, x, dx);
+		double tMaxY = boundaryDistance(y0, y, dy);
+		double tMaxZ = boundaryDistance(z0, z, dz);
+
+		long cachedChunk = Long.MIN_VALUE;
+		ChunkSnapshot snapshot = null;
+		int maxSteps =
+			Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+
+		for (int i = 0; i <= maxSteps; i++) {
+			if (x == endX && y == endY && z == endZ) return false;
+
+			if (y >= bounds.minY() && y < bounds.maxY()) {
+				long chunk = BlockKeys.chunkKey(x >> 4, z >> 4);
+				if (chunk != cachedChunk) {
+					cachedChunk = chunk;
+					snapshot = chunks.get(new ChunkRef(world, chunk));
+				}
+				if (
+					snapshot != null &&
+					solidMaterials[snapshot
+						.getBlockType(x & 15, y, z & 15)
+						.ordinal()]
+				) {
+					return true;
+				}
+			}
+
+			if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+				x += stepX;
+				tMaxX += tDeltaX;
+			} else if (tMaxY < tMaxZ) {
+				y += stepY;
+				tMaxY += tDeltaY;
+			} else {
+				z += stepZ;
+				tMaxZ += tDeltaZ;
+			}
+		}
+		return false;
+	}
+
+	private static double boundaryDistance(
+		double origin,
+		int cell,
+		double delta
+	) {
+		if (delta > 0) return (cell + 1 - origin) / delta;
+		if (delta < 0) return (origin - cell) / -delta;
+		return Double.MAX_VALUE;
+	}
+}
@@ -0,0 +1,167 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.managers.ShopManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+/**
+ * Keeps Bedrock clients in sync with the shop displays around them.
+ * For each client it records which display entities the server is actually
+ * tracking for it. After a teleport or world change, when Geyser clients can
+ * keep stale entities, only the displays that client already had are re-sent,
+ * and only to that client.
+ */
+public class BedrockDisplaySync {
+
+	// Ticks between passes over the Bedrock clients
+	private static final int PASS_INTERVAL = 20;
+	// Movement between passes that counts as a teleport
+	private static final double JUMP_DISTANCE = 32.0;
+
+	private final ByteCore plugin;
+	private final ShopManager shopManager;
+	private final DisplayVisibilityEngine engine;
+	private final ConfigManager config;
+	private final Map<UUID, ClientState> clients = new HashMap<>();
+	private int tickCounter;
+
+	// Metrics, written on the server thread and read by the API
+	private volatile int clientCount;
+	private volatile int trackedDisplays;
+	private volatile long resyncs;
+	private volatile long lastPassNanos;
+
+	private static final class ClientState {
+
+		private String world;
+		private double x;
+		private double y;
+		private double z;
+		// Shop location -> display entity the client was last sent
+		private final Map<Location, UUID> sent = new HashMap<>();
+	}
+
+	public BedrockDisplaySync(
+		ByteCore plugin,
+		ShopManager shopManager,
+		DisplayVisibilityEngine engine,
+		ConfigManager config
+	) {
+		this.plugin = plugin;
+		this.shopManager = shopManager;
+		this.engine = engine;
+		this.config = config;
+	}
+
+	public void tick() {
+		if (++tickCounter % PASS_INTERVAL != 0) return;
+
+		long start = System.nanoTime();
+		int tracked = 0;
+		for (Player player : plugin.getServer().getOnlinePlayers()) {
+			if (!engine.isBedrock(player)) continue;
+			tracked += sync(
+				player,
+				clients.computeIfAbsent(player.getUniqueId(), id ->
+					new ClientState()
+				)
+			);
+		}
+
+		if (clients.size() > plugin.getServer().getOnlinePlayers().size()) {
+			clients
+				.keySet()
+				.removeIf(id -> plugin.getServer().getPlayer(id) == null);
+		}
+		clientCount = clients.size();
+		trackedDisplays = tracked;
+		lastPassNanos = System.nanoTime() - start;
+	}
+
+	public void forget(UUID playerId) {
+		clients.remove(playerId);
+	}
+
+	private int sync(Player player, ClientState state) {
+		Location loc = player.getLocation();
+		boolean jumped =
+			state.world != null &&
+			(!state.world.equals(loc.getWorld().getName()) ||
+				distanceSquared(state, loc) > JUMP_DISTANCE * JUMP_DISTANCE);
+		state.world = loc.getWorld().getName();
+		state.x = loc.getX();
+		state.y = loc.getY();
+		state.z = loc.getZ();
+
+		Set<Location> nearby = engine.findNearbyDisplays(
+			loc,
+			Math.min(config.getDisplayViewDistance(), 32)
+		);
+		state.sent.keySet().retainAll(nearby);
+
+		for (Location shopLoc : nearby) {
+			ShopDisplay display = shopManager.getDisplay(shopLoc);
+			if (display == null || !display.isValid()) {
+				state.sent.remove(shopLoc);
+				continue;
+			}
+
+			Entity entity = display.getEntity();
+			if (!entity.getTrackedBy().contains(player)) {
+				state.sent.remove(shopLoc);
+				continue;
+			}
+
+			UUID previous = state.sent.put(shopLoc, display.getId());
+			// A new or replaced entity arrives as a fresh spawn and needs no help
+			if (jumped && display.getId().equals(previous)) {
+				resend(player, display);
+			}
+		}
+		return state.sent.size();
+	}
+
+	/**
+	 * Despawns and respawns a display on one client only
+	 */
+	private void resend(Player player, ShopDisplay display) {
+		// Op-only displays are hidden by default and must stay that way
+		if (config.isDisplayItemsOpOnly() && !player.isOp()) return;
+
+		boolean nameVisible = display.isNameVisible(player);
+		player.hideEntity(plugin, display.getEntity());
+		player.showEntity(plugin, display.getEntity());
+		if (nameVisible) {
+			display.setNameVisible(player, false);
+			display.setNameVisible(player, true);
+		}
+		resyncs++;
+	}
+
+	private static double distanceSquared(ClientState state, Location loc) {
+		double dx = state.x - loc.getX();
+		double dy = state.y - loc.getY();
+		double dz = state.z - loc.getZ();
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("clients", clientCount);
+		metrics.put("trackedDisplays", trackedDisplays);
+		metrics.put("resyncs", resyncs);
+		metrics.put(
+			"lastPassMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastPassNanos)
+		);
+		return metrics;
+	}
+}
@@ -0,0 +1,35 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Bitset over hashed chunk keys that answers "may this chunk matter" without
+ * allocating. It can report chunks that were never added, which only costs
+ * the lookup it guards, so it is rebuilt now and then as entries go stale.
+ */
+final class ChunkFilter {
+
+	private static final int BITS = 1 << 16;
+
+	private final long[] words = new long[BITS >>> 6];
+
+	void add(UUID world, long chunkKey) {
+		int bit = bit(world, chunkKey);
+		words[bit >>> 6] |= 1L << bit;
+	}
+
+	boolean mayContain(UUID world, long chunkKey) {
+		int bit = bit(world, chunkKey);
+		return (words[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	private static int bit(UUID world, long chunkKey) {
+		return (BlockKeys.hash(chunkKey) ^ world.hashCode()) & (BITS - 1);
+	}
+}
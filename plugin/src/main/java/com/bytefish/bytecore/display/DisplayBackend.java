@@ -0,0 +1,17 @@
+package com.bytefish.bytecore.display;
+
+/**
+ * Entity type used to render shop displays, selected with shops.display-items.backend
+ */
+public enum DisplayBackend {
+	ITEM,
+	ITEM_DISPLAY;
+
+	public static DisplayBackend fromConfig(String value) {
+		try {
+			return valueOf(value.toUpperCase().replace('-', '_'));
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return ITEM;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+/**
+ * Keeps display entities alive only near players. A shop's display is
+ * spawned once a player comes within the view distance and despawned once
+ * every player is further away than the view distance plus a hysteresis band,
+ * so players walking along the edge don't cause spawn and despawn churn.
+ * With op-only displays the entities are hidden by default and shown to
+ * operators individually.
+ */
+public class DisplayProximityTracker {
+
+	// Ticks between proximity passes
+	private static final int PASS_INTERVAL = 10;
+
+	private final ByteCore plugin;
+	private final ShopManager shopManager;
+	private final ConfigManager config;
+	private int tickCounter;
+
+	// Player positions by chunk as of the last pass
+	private Map<ChunkRef, List<Location>> playersByChunk = new HashMap<>();
+
+	// Metrics, written on the server thread and read by the API
+	private volatile int activeDisplays;
+	private volatile int dormantShops;
+	private volatile long spawned;
+	private volatile long despawned;
+	private volatile long lastPassNanos;
+
+	private record ChunkRef(UUID world, long chunk) {}
+
+	public DisplayProximityTracker(
+		ByteCore plugin,
+		ShopManager shopManager,
+		ConfigManager config
+	) {
+		this.plugin = plugin;
+		this.shopManager = shopManager;
+		this.config = config;
+	}
+
+	public void tick() {
+		if (++tickCounter % PASS_INTERVAL != 0) return;
+
+		long start = System.nanoTime();
+		int spawnRadius = config.getDisplayViewDistance();
+		int despawnRadius = spawnRadius + config.getDisplayDespawnHysteresis();
+		double spawnSquared = (double) spawnRadius * spawnRadius;
+		double despawnSquared = (double) despawnRadius * despawnRadius;
+		boolean opOnly = config.isDisplayItemsOpOnly();
+
+		Set<Location> demanded = new HashSet<>();
+		Set<Location> toSpawn = new LinkedHashSet<>();
+		Map<ChunkRef, List<Location>> players = new HashMap<>();
+		for (Player player : plugin.getServer().getOnlinePlayers()) {
+			Location playerLoc = player.getLocation();
+			World world = playerLoc.getWorld();
+			int chunkRadius = (despawnRadius >> 4) + 1;
+			int playerChunkX = playerLoc.getBlockX() >> 4;
+			int playerChunkZ = playerLoc.getBlockZ() >> 4;
+			players
+				.computeIfAbsent(
+					new ChunkRef(
+						world.getUID(),
+						BlockKeys.chunkKey(playerChunkX, playerChunkZ)
+					),
+					k -> new ArrayList<>()
+				)
+				.add(playerLoc);
+
+			for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+				for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+					int chunkX = playerChunkX + dx;
+					int chunkZ = playerChunkZ + dz;
+					for (Location loc : shopManager.getDisplayLocationsInChunk(
+						world,
+						chunkX,
+						chunkZ
+					)) {
+						if (loc.distanceSquared(playerLoc) <= despawnSquared) {
+							demanded.add(loc);
+							if (opOnly) {
+								applyOpOnly(player, loc);
+							}
+						}
+					}
+					for (Location loc : shopManager.getDormantShopsInChunk(
+						world,
+						chunkX,
+						chunkZ
+					)) {
+						if (loc.distanceSquared(playerLoc) <= spawnSquared) {
+							toSpawn.add(loc);
+						}
+					}
+				}
+			}
+		}
+
+		playersByChunk = players;
+
+		List<Location> toDespawn = new ArrayList<>();
+		for (Location loc : shopManager.getDisplayLocations()) {
+			if (!demanded.contains(loc)) {
+				toDespawn.add(loc);
+			}
+		}
+		toDespawn.forEach(shopManager::despawnDisplay);
+		for (Location loc : toSpawn) {
+			if (shopManager.spawnDisplay(loc)) spawned++;
+		}
+
+		despawned += toDespawn.size();
+		activeDisplays = shopManager.getDisplayLocations().size();
+		dormantShops = shopManager.getDormantShopCount();
+		lastPassNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Whether any player was close enough at the last pass for a shop to
+	 * need its display. Players who arrived since are caught by the next one.
+	 */
+	public boolean isDemanded(Location shopLoc) {
+		if (playersByChunk.isEmpty()) return false;
+
+		int spawnRadius = config.getDisplayViewDistance();
+		double spawnSquared = (double) spawnRadius * spawnRadius;
+		int chunkRadius = (spawnRadius >> 4) + 1;
+		int shopChunkX = shopLoc.getBlockX() >> 4;
+		int shopChunkZ = shopLoc.getBlockZ() >> 4;
+		UUID world = shopLoc.getWorld().getUID();
+		for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+			for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+				List<Location> players = playersByChunk.get(
+					new ChunkRef(
+						world,
+						BlockKeys.chunkKey(shopChunkX + dx, shopChunkZ + dz)
+					)
+				);
+				if (players == null) continue;
+				for (Location playerLoc : players) {
+					if (playerLoc.distanceSquared(shopLoc) <= spawnSquared) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Hides a new display by default when only operators may see it
+	 */
+	public void prepare(ShopDisplay display) {
+		if (config.isDisplayItemsOpOnly()) {
+			display.getEntity().setVisibleByDefault(false);
+		}
+	}
+
+	private void applyOpOnly(Player player, Location shopLoc) {
+		ShopDisplay display = shopManager.getDisplay(shopLoc);
+		if (display == null || !display.isValid()) return;
+
+		Entity entity = display.getEntity();
+		boolean visible = player.isOp();
+		if (player.canSee(entity) == visible) return;
+		if (visible) {
+			player.showEntity(plugin, entity);
+		} else {
+			player.hideEntity(plugin, entity);
+		}
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("activeDisplays", activeDisplays);
+		metrics.put("dormantShops", dormantShops);
+		metrics.put("spawned", spawned);
+		metrics.put("despawned", despawned);
+		metrics.put(
+			"lastPassMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastPassNanos)
+		);
+		return metrics;
+	}
+}
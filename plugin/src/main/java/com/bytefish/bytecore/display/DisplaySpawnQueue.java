@@ -0,0 +1,132 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * Pending display work for loaded chunks. Each chunk is queued at most once,
+ * and the queue is drained in load order within a per-tick time budget.
+ * Chunks that unloaded while waiting are dropped.
+ */
+public class DisplaySpawnQueue {
+
+	private final long budgetNanos;
+	private final Map<ChunkRef, ChunkWork> pending = new LinkedHashMap<>();
+
+	// Metrics, written on the server thread and read by the API
+	private volatile int depth;
+	private volatile int peakDepth;
+	private volatile long enqueued;
+	private volatile long deduplicated;
+	private volatile long processed;
+	private volatile long skippedUnloaded;
+	private volatile int processedLastTick;
+	private volatile long lastDrainNanos;
+	private volatile double drainRatePerSecond;
+
+	private record ChunkRef(UUID world, long chunk) {}
+
+	/**
+	 * A chunk waiting for its displays to be adopted or spawned, with the
+	 * entities that were loaded alongside it
+	 */
+	public record ChunkWork(World world, int x, int z, List<Entity> entities) {}
+
+	public DisplaySpawnQueue(int budgetMicros) {
+		this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+	}
+
+	/**
+	 * Queues a chunk, replacing older work for it since the newer entity list wins
+	 */
+	public void enqueue(Chunk chunk, List<Entity> entities) {
+		ChunkRef ref = new ChunkRef(
+			chunk.getWorld().getUID(),
+			BlockKeys.chunkKey(chunk.getX(), chunk.getZ())
+		);
+		ChunkWork work = new ChunkWork(
+			chunk.getWorld(),
+			chunk.getX(),
+			chunk.getZ(),
+			entities
+		);
+		if (pending.replace(ref, work) != null) {
+			deduplicated++;
+		} else {
+			pending.put(ref, work);
+			enqueued++;
+		}
+		depth = pending.size();
+		peakDepth = Math.max(peakDepth, depth);
+	}
+
+	public boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	/**
+	 * Hands queued chunks to the worker until the tick budget is spent
+	 */
+	public void drain(Consumer<ChunkWork> worker) {
+		long start = System.nanoTime();
+		long deadline = start + budgetNanos;
+		int count = 0;
+
+		Iterator<ChunkWork> it = pending.values().iterator();
+		while (it.hasNext()) {
+			// Always make progress, even if one chunk exceeds the budget
+			if (count > 0 && System.nanoTime() >= deadline) break;
+
+			ChunkWork work = it.next();
+			it.remove();
+
+			Chunk chunk = work.world().isChunkLoaded(work.x(), work.z())
+				? work.world().getChunkAt(work.x(), work.z())
+				: null;
+			if (chunk == null || !chunk.isEntitiesLoaded()) {
+				skippedUnloaded++;
+				continue;
+			}
+
+			worker.accept(work);
+			count++;
+		}
+
+		processed += count;
+		processedLastTick = count;
+		lastDrainNanos = System.nanoTime() - start;
+		drainRatePerSecond = drainRatePerSecond * 0.95 + count * 20 * 0.05;
+		depth = pending.size();
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("depth", depth);
+		metrics.put("peakDepth", peakDepth);
+		metrics.put("enqueued", enqueued);
+		metrics.put("deduplicated", deduplicated);
+		metrics.put("processed", processed);
+		metrics.put("skippedUnloaded", skippedUnloaded);
+		metrics.put("processedLastTick", processedLastTick);
+		metrics.put("drainRatePerSecond", drainRatePerSecond);
+		metrics.put(
+			"budgetMicros",
+			TimeUnit.NANOSECONDS.toMicros(budgetNanos)
+		);
+		metrics.put(
+			"lastDrainMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastDrainNanos)
+		);
+		return metrics;
+	}
+}
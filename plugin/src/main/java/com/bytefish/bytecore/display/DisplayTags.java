@@ -0,0 +1,60 @@
+package com.bytefish.bytecore.display;
+
+import java.util.UUID;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Entity;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persistent tags on display entities, so they can be matched back to their
+ * shop after a chunk or the server reloads
+ */
+public class DisplayTags {
+
+	public static final String ROLE_ITEM = "item";
+	public static final String ROLE_NAME_TAG = "name_tag";
+
+	private final NamespacedKey shopKey;
+	private final NamespacedKey roleKey;
+
+	public DisplayTags(Plugin plugin) {
+		this.shopKey = new NamespacedKey(plugin, "shop_display");
+		this.roleKey = new NamespacedKey(plugin, "shop_display_role");
+	}
+
+	public void tag(Entity entity, UUID shopId, String role) {
+		PersistentDataContainer data = entity.getPersistentDataContainer();
+		data.set(shopKey, PersistentDataType.STRING, shopId.toString());
+		data.set(roleKey, PersistentDataType.STRING, role);
+	}
+
+	public boolean isDisplay(Entity entity) {
+		return entity
+			.getPersistentDataContainer()
+			.has(shopKey, PersistentDataType.STRING);
+	}
+
+	public boolean isNameTag(Entity entity) {
+		return ROLE_NAME_TAG.equals(
+			entity
+				.getPersistentDataContainer()
+				.get(roleKey, PersistentDataType.STRING)
+		);
+	}
+
+	@Nullable
+	public UUID getShopId(Entity entity) {
+		String value = entity
+			.getPersistentDataContainer()
+			.get(shopKey, PersistentDataType.STRING);
+		if (value == null) return null;
+		try {
+			return UUID.fromString(value);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
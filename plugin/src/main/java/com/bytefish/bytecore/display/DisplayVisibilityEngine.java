@@ -0,0 +1,473 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.managers.ShopManager;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.FluidCollisionMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+import org.geysermc.floodgate.api.FloodgateApi;
+
+/**
+ * Decides which shop display name tags are visible to which players.
+ * Visibility is tracked per viewer, so players looking at the same display
+ * from different spots never flip each other's name tags.
+ * Only displays in the chunks around a player are considered, and a player
+ * is only re-evaluated after crossing a block boundary, turning their head,
+ * or when a display in one of those chunks is spawned or removed.
+ * Line-of-sight ray traces are handed to a {@link LineOfSightScheduler} and
+ * their answers are kept in a {@link LineOfSightCache}. With async visibility
+ * enabled the whole computation moves to an {@link AsyncVisibilityPipeline}.
+ * Bedrock clients are additionally kept in sync by a {@link BedrockDisplaySync}.
+ */
+public class DisplayVisibilityEngine {
+
+	// Degrees of yaw or pitch change before a stationary player is re-evaluated
+	private static final float TURN_THRESHOLD = 10.0f;
+	// Ticks between rebuilds of the watched chunk filter
+	private static final int FILTER_REBUILD_INTERVAL = 200;
+
+	private final ByteCore plugin;
+	private final ShopManager shopManager;
+	private final ConfigManager config;
+	private final LineOfSightScheduler lineOfSight;
+	private final LineOfSightCache lineOfSightCache;
+	private final AsyncVisibilityPipeline asyncPipeline;
+	private final BedrockDisplaySync bedrockSync;
+	// Chunks a cached ray or snapshot may cover; changes elsewhere are ignored
+	private final ChunkFilter watchedChunks = new ChunkFilter();
+	private final Map<UUID, ViewerState> viewers = new HashMap<>();
+	// Bumped on every display change; chunks record it when theirs change
+	private long displayGeneration;
+	private final Map<String, Long> worldGenerations = new HashMap<>();
+	private final Map<String, Map<Long, Long>> chunkGenerations =
+		new HashMap<>();
+	private int tickCounter;
+
+	private static final class ViewerState {
+
+		private final boolean bedrock;
+		private String world;
+		private int blockX;
+		private int blockY;
+		private int blockZ;
+		private float yaw;
+		private float pitch;
+		private long generation = -1;
+		private Set<Location> nearby = new HashSet<>();
+
+		private ViewerState(boolean bedrock) {
+			this.bedrock = bedrock;
+		}
+
+		private boolean isUnmoved(Location loc) {
+			return (
+				generation >= 0 &&
+				blockX == loc.getBlockX() &&
+				blockY == loc.getBlockY() &&
+				blockZ == loc.getBlockZ() &&
+				loc.getWorld().getName().equals(world) &&
+				Math.abs(angleDelta(yaw, loc.getYaw())) < TURN_THRESHOLD &&
+				Math.abs(pitch - loc.getPitch()) < TURN_THRESHOLD
+			);
+		}
+
+		private int chunkRadius(ConfigManager config) {
+			return (viewDistance(config, bedrock) >> 4) + 1;
+		}
+
+		private void capture(Location loc, long currentGeneration) {
+			world = loc.getWorld().getName();
+			blockX = loc.getBlockX();
+			blockY = loc.getBlockY();
+			blockZ = loc.getBlockZ();
+			yaw = loc.getYaw();
+			pitch = loc.getPitch();
+			generation = currentGeneration;
+		}
+
+		private static float angleDelta(float from, float to) {
+			float delta = (to - from) % 360.0f;
+			if (delta > 180.0f) delta -= 360.0f;
+			if (delta < -180.0f) delta += 360.0f;
+			return delta;
+		}
+	}
+
+	public DisplayVisibilityEngine(
+		ByteCore plugin,
+		ShopManager shopManager,
+		ConfigManager config
+	) {
+		this.plugin = plugin;
+		this.shopManager = shopManager;
+		this.config = config;
+		this.lineOfSight = new LineOfSightScheduler(plugin, this, config);
+		this.lineOfSightCache = new LineOfSightCache(
+			config.getLineOfSightCacheSize(),
+			config.getLineOfSightCacheTtlMillis(),
+			watchedChunks
+		);
+		this.asyncPipeline = config.isAsyncVisibilityEnabled()
+			? new AsyncVisibilityPipeline(
+				plugin,
+				shopManager,
+				this,
+				config,
+				watchedChunks
+			)
+			: null;
+		this.bedrockSync = new BedrockDisplaySync(
+			plugin,
+			shopManager,
+			this,
+			config
+		);
+	}
+
+	/**
+	 * Runs every tick; viewers are only re-evaluated at the configured update frequency
+	 */
+	public void tick() {
+		int updateFrequency = Math.max(1, config.getDisplayUpdateFrequency());
+		if (tickCounter++ % updateFrequency == 0) {
+			if (asyncPipeline != null) {
+				asyncPipeline.capture();
+			} else {
+				updateViewers();
+			}
+			pruneViewers();
+		}
+
+		if (asyncPipeline == null) {
+			lineOfSight.tick();
+		}
+		bedrockSync.tick();
+
+		// Drops bits of evicted entries and expired snapshots
+		if (tickCounter % FILTER_REBUILD_INTERVAL == 0) {
+			watchedChunks.clear();
+			lineOfSightCache.markChunks();
+			if (asyncPipeline != null) {
+				asyncPipeline.markChunks();
+			}
+		}
+	}
+
+	public void shutdown() {
+		if (asyncPipeline != null) {
+			asyncPipeline.shutdown();
+		}
+	}
+
+	private void updateViewers() {
+		for (Player player : plugin.getServer().getOnlinePlayers()) {
+			ViewerState state = getViewerState(player);
+			Location loc = player.getLocation();
+			if (
+				state.isUnmoved(loc) &&
+				!displaysChangedNear(
+					state.world,
+					state.blockX >> 4,
+					state.blockZ >> 4,
+					state.chunkRadius(config),
+					state.generation
+				)
+			) {
+				continue;
+			}
+
+			state.capture(loc, displayGeneration);
+			updateViewer(player, loc, state);
+		}
+	}
+
+	/**
+	 * Drops the state of players who left. Not gated on the viewer count,
+	 * which stays level when one player leaves as another joins.
+	 */
+	private void pruneViewers() {
+		viewers.keySet().removeIf(id -> {
+			if (plugin.getServer().getPlayer(id) != null) return false;
+			lineOfSight.forgetPlayer(id);
+			bedrockSync.forget(id);
+			return true;
+		});
+	}
+
+	private ViewerState getViewerState(Player player) {
+		return viewers.computeIfAbsent(player.getUniqueId(), id ->
+			new ViewerState(isBedrockPlayer(player))
+		);
+	}
+
+	boolean isBedrock(Player player) {
+		return getViewerState(player).bedrock;
+	}
+
+	/**
+	 * Called whenever a display is spawned or removed, so viewers near its
+	 * chunk are re-evaluated
+	 */
+	public void invalidate(Location loc) {
+		long generation = ++displayGeneration;
+		String world = loc.getWorld().getName();
+		worldGenerations.put(world, generation);
+		chunkGenerations
+			.computeIfAbsent(world, k -> new HashMap<>())
+			.put(
+				BlockKeys.chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4),
+				generation
+			);
+	}
+
+	/**
+	 * Re-evaluates every viewer, for when all displays go at once
+	 */
+	public void invalidateAll() {
+		for (ViewerState state : viewers.values()) {
+			state.generation = -1;
+		}
+	}
+
+	private boolean displaysChangedNear(
+		String world,
+		int chunkX,
+		int chunkZ,
+		int chunkRadius,
+		long since
+	) {
+		Long worldGeneration = worldGenerations.get(world);
+		if (worldGeneration == null || worldGeneration <= since) return false;
+
+		// Walk whichever is smaller, the changed chunks or the chunk square
+		Map<Long, Long> chunks = chunkGenerations.get(world);
+		int side = 2 * chunkRadius + 1;
+		if (chunks.size() < side * side) {
+			for (Map.Entry<Long, Long> entry : chunks.entrySet()) {
+				long key = entry.getKey();
+				if (
+					entry.getValue() > since &&
+					Math.abs(BlockKeys.chunkX(key) - chunkX) <= chunkRadius &&
+					Math.abs(BlockKeys.chunkZ(key) - chunkZ) <= chunkRadius
+				) {
+					return true;
+				}
+			}
+			return false;
+		}
+		for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+			for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+				Long generation = chunks.get(
+					BlockKeys.chunkKey(chunkX + dx, chunkZ + dz)
+				);
+				if (generation != null && generation > since) return true;
+			}
+		}
+		return false;
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("viewers", viewers.size());
+		metrics.put("lineOfSight", lineOfSight.getMetrics());
+		metrics.put("lineOfSightCache", lineOfSightCache.getMetrics());
+		metrics.put("bedrock", bedrockSync.getMetrics());
+		if (asyncPipeline != null) {
+			metrics.put("async", asyncPipeline.getMetrics());
+		}
+		return metrics;
+	}
+
+	/**
+	 * Drops cached line-of-sight answers whose ray may pass through the block
+	 */
+	/**
+	 * Drops cached answers and snapshots the block change may affect. Block
+	 * physics calls this constantly, so changes in chunks no cached ray or
+	 * snapshot covers return at an allocation-free filter check.
+	 */
+	public void handleBlockChange(Block block) {
+		if (
+			!watchedChunks.mayContain(
+				block.getWorld().getUID(),
+				BlockKeys.chunkKey(block.getX() >> 4, block.getZ() >> 4)
+			)
+		) {
+			return;
+		}
+		lineOfSightCache.invalidate(
+			block.getWorld().getUID(),
+			block.getX(),
+			block.getZ()
+		);
+		if (asyncPipeline != null) {
+			asyncPipeline.invalidateChunk(
+				block.getWorld().getUID(),
+				block.getX() >> 4,
+				block.getZ() >> 4
+			);
+		}
+	}
+
+	private void updateViewer(
+		Player player,
+		Location playerLoc,
+		ViewerState state
+	) {
+		Set<Location> nearby = findNearbyDisplays(
+			playerLoc,
+			viewDistance(config, state.bedrock)
+		);
+
+		for (Location loc : state.nearby) {
+			if (!nearby.contains(loc)) {
+				lineOfSight.cancel(player.getUniqueId(), loc);
+				setNameVisible(player, shopManager.getDisplay(loc), false);
+			}
+		}
+
+		for (Location loc : nearby) {
+			ShopDisplay display = shopManager.getDisplay(loc);
+			if (display == null || !display.isValid()) continue;
+
+			// Only show name for enchanted items
+			if (!display.hasNameTag()) {
+				lineOfSight.cancel(player.getUniqueId(), loc);
+				continue;
+			}
+
+			lineOfSight.request(player, loc, state.bedrock);
+		}
+
+		state.nearby = nearby;
+	}
+
+	private static int viewDistance(ConfigManager config, boolean bedrock) {
+		// Reduced for Bedrock
+		return bedrock
+			? Math.min(config.getDisplayViewDistance(), 32)
+			: config.getDisplayViewDistance();
+	}
+
+	Set<Location> findNearbyDisplays(
+		Location playerLoc,
+		int viewDistance
+	) {
+		Set<Location> nearby = new HashSet<>();
+		World world = playerLoc.getWorld();
+		int chunkRadius = (viewDistance >> 4) + 1;
+		int playerChunkX = playerLoc.getBlockX() >> 4;
+		int playerChunkZ = playerLoc.getBlockZ() >> 4;
+		double maxDistanceSquared = (double) viewDistance * viewDistance;
+
+		for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+			for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+				for (Location loc : shopManager.getDisplayLocationsInChunk(
+					world,
+					playerChunkX + dx,
+					playerChunkZ + dz
+				)) {
+					if (loc.distanceSquared(playerLoc) <= maxDistanceSquared) {
+						nearby.add(loc);
+					}
+				}
+			}
+		}
+		return nearby;
+	}
+
+	/**
+	 * Runs the full angle and ray trace check for a pair queued by the scheduler
+	 */
+	boolean evaluateLineOfSight(
+		Player player,
+		Location shopLoc,
+		boolean isBedrock
+	) {
+		ShopDisplay display = shopManager.getDisplay(shopLoc);
+		if (display == null || !display.isValid()) return false;
+
+		Location eyeLoc = player.getEyeLocation();
+		Location displayLoc = display.getLocation();
+		if (!eyeLoc.getWorld().equals(displayLoc.getWorld())) return false;
+
+		Boolean cached = lineOfSightCache.get(eyeLoc, displayLoc, isBedrock);
+		if (cached != null) return cached;
+
+		boolean visible = isPlayerLookingAtDisplay(
+			player,
+			displayLoc,
+			isBedrock
+		);
+		lineOfSightCache.put(eyeLoc, displayLoc, isBedrock, visible);
+		return visible;
+	}
+
+	void applyLineOfSight(Player player, Location shopLoc, boolean visible) {
+		if (visible && config.isDisplayItemsOpOnly() && !player.isOp()) {
+			visible = false;
+		}
+		setNameVisible(player, shopManager.getDisplay(shopLoc), visible);
+	}
+
+	private void setNameVisible(
+		Player player,
+		ShopDisplay display,
+		boolean visible
+	) {
+		// Only this player's view changes, and only if it differs
+		if (display != null) {
+			display.setNameVisible(player, visible);
+		}
+	}
+
+	public boolean isPlayerLookingAtDisplay(
+		Player player,
+		Location displayLoc,
+		boolean isBedrock
+	) {
+		Location eyeLoc = player.getEyeLocation();
+		if (!eyeLoc.getWorld().equals(displayLoc.getWorld())) return false;
+
+		double distanceSquared = eyeLoc.distanceSquared(displayLoc);
+
+		// Adjusted view angle for Bedrock players
+		double maxAngle = isBedrock ? Math.PI / 3 : Math.PI / 4; // 60 degrees for Bedrock, 45 for Java
+
+		Vector toDisplay = displayLoc.clone().subtract(eyeLoc).toVector();
+		double angle = eyeLoc.getDirection().angle(toDisplay);
+		if (angle > maxAngle) return false;
+
+		RayTraceResult rayTrace = player
+			.getWorld()
+			.rayTraceBlocks(
+				eyeLoc,
+				toDisplay.normalize(),
+				Math.sqrt(distanceSquared),
+				FluidCollisionMode.NEVER,
+				true
+			);
+
+		return rayTrace == null || rayTrace.getHitBlock() == null;
+	}
+
+	private boolean isBedrockPlayer(Player player) {
+		try {
+			return FloodgateApi.getInstance()
+				.isFloodgatePlayer(player.getUniqueId());
+		} catch (Exception e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.bytefish.bytecore.display;
+
+import java.util.Collection;
+import java.util.UUID;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Location;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Display backed by an {@link ItemDisplay}, with a {@link TextDisplay} above it
+ * for enchantment lore. Display entities have no physics, never merge and
+ * never despawn, so none of the dropped-item workarounds are needed.
+ */
+public class ItemDisplayEntityDisplay implements ShopDisplay {
+
+	// Height of the enchantment text above the item
+	private static final double NAME_TAG_OFFSET = 0.45;
+	// Vanilla view range 1.0 equals 64 blocks
+	private static final float VIEW_RANGE_BLOCKS = 64.0f;
+
+	private final ItemDisplay itemDisplay;
+
+	@Nullable
+	private final NameTag nameTag;
+
+	private ItemDisplayEntityDisplay(
+		ItemDisplay itemDisplay,
+		@Nullable NameTag nameTag
+	) {
+		this.itemDisplay = itemDisplay;
+		this.nameTag = nameTag;
+	}
+
+	public static ItemDisplayEntityDisplay spawn(
+		Plugin plugin,
+		Location spawnLoc,
+		ItemStack displayItem,
+		int viewDistance,
+		DisplayTags tags,
+		UUID shopId
+	) {
+		float viewRange = viewDistance / VIEW_RANGE_BLOCKS;
+
+		ItemDisplay itemDisplay = spawnLoc
+			.getWorld()
+			.spawn(spawnLoc, ItemDisplay.class);
+		itemDisplay.setItemStack(displayItem);
+		itemDisplay.setItemDisplayTransform(
+			ItemDisplay.ItemDisplayTransform.GROUND
+		);
+		itemDisplay.setBillboard(Display.Billboard.VERTICAL);
+		itemDisplay.setViewRange(viewRange);
+		tags.tag(itemDisplay, shopId, DisplayTags.ROLE_ITEM);
+
+		NameTag nameTag = null;
+		Component nameText = NameTag.textFor(displayItem);
+		if (nameText != null) {
+			nameTag = NameTag.spawnTextDisplay(
+				plugin,
+				spawnLoc.clone().add(0, NAME_TAG_OFFSET, 0),
+				nameText,
+				viewRange,
+				tags,
+				shopId
+			);
+		}
+		return new ItemDisplayEntityDisplay(itemDisplay, nameTag);
+	}
+
+	/**
+	 * Rebuilds a display from entities saved with their chunk, or returns null
+	 * if they don't form a complete display for this item
+	 */
+	@Nullable
+	public static ItemDisplayEntityDisplay adopt(
+		Plugin plugin,
+		Collection<Entity> entities,
+		ItemStack displayItem,
+		DisplayTags tags
+	) {
+		ItemDisplay itemDisplay = null;
+		TextDisplay textDisplay = null;
+		for (Entity entity : entities) {
+			if (tags.isNameTag(entity)) {
+				if (entity instanceof TextDisplay t && textDisplay == null) {
+					textDisplay = t;
+				}
+			} else if (
+				entity instanceof ItemDisplay d &&
+				itemDisplay == null &&
+				displayItem.isSimilar(d.getItemStack())
+			) {
+				itemDisplay = d;
+			}
+		}
+
+		boolean needsNameTag = NameTag.textFor(displayItem) != null;
+		if (itemDisplay == null || needsNameTag != (textDisplay != null)) {
+			return null;
+		}
+
+		return new ItemDisplayEntityDisplay(
+			itemDisplay,
+			textDisplay != null ? NameTag.adopt(plugin, textDisplay) : null
+		);
+	}
+
+	@Override
+	public Entity getEntity() {
+		return itemDisplay;
+	}
+
+	@Override
+	public boolean hasNameTag() {
+		return nameTag != null;
+	}
+
+	@Override
+	public boolean isNameVisible(Player viewer) {
+		return nameTag != null && nameTag.isVisibleTo(viewer);
+	}
+
+	@Override
+	public void setNameVisible(Player viewer, boolean visible) {
+		if (nameTag != null) {
+			nameTag.setVisibleTo(viewer, visible);
+		}
+	}
+
+	@Override
+	public boolean owns(Entity entity) {
+		return (
+			entity.equals(itemDisplay) ||
+			(nameTag != null && entity.equals(nameTag.getEntity()))
+		);
+	}
+
+	@Override
+	public void remove() {
+		if (!itemDisplay.isDead()) {
+			itemDisplay.remove();
+		}
+		if (nameTag != null) {
+			nameTag.remove();
+		}
+	}
+}
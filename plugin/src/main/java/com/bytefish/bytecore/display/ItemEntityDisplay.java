@@ -0,0 +1,137 @@
+package com.bytefish.bytecore.display;
+
+import java.util.Collection;
+import java.util.UUID;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Location;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.Vector;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Display backed by a dropped {@link Item} with its physics disabled
+ */
+public class ItemEntityDisplay implements ShopDisplay {
+
+	// Height of the name tag above the item
+	private static final double NAME_TAG_OFFSET = 0.35;
+
+	private final Item item;
+
+	@Nullable
+	private final NameTag nameTag;
+
+	private ItemEntityDisplay(Item item, @Nullable NameTag nameTag) {
+		this.item = item;
+		this.nameTag = nameTag;
+	}
+
+	public static ItemEntityDisplay spawn(
+		Plugin plugin,
+		Location spawnLoc,
+		ItemStack displayItem,
+		DisplayTags tags,
+		UUID shopId
+	) {
+		Item item = spawnLoc.getWorld().dropItem(spawnLoc, displayItem);
+		item.setCustomNameVisible(false);
+		item.setGravity(false);
+		item.setInvulnerable(true);
+		item.setPickupDelay(Integer.MAX_VALUE);
+		item.setPersistent(true);
+		item.setVelocity(new Vector(0, 0, 0));
+		tags.tag(item, shopId, DisplayTags.ROLE_ITEM);
+
+		NameTag nameTag = null;
+		Component nameText = NameTag.textFor(displayItem);
+		if (nameText != null) {
+			nameTag = NameTag.spawnArmorStand(
+				plugin,
+				spawnLoc.clone().add(0, NAME_TAG_OFFSET, 0),
+				nameText,
+				tags,
+				shopId
+			);
+		}
+		return new ItemEntityDisplay(item, nameTag);
+	}
+
+	/**
+	 * Rebuilds a display from entities saved with their chunk, or returns null
+	 * if they don't form a complete display for this item
+	 */
+	@Nullable
+	public static ItemEntityDisplay adopt(
+		Plugin plugin,
+		Collection<Entity> entities,
+		ItemStack displayItem,
+		DisplayTags tags
+	) {
+		Item item = null;
+		ArmorStand stand = null;
+		for (Entity entity : entities) {
+			if (tags.isNameTag(entity)) {
+				if (entity instanceof ArmorStand s && stand == null) stand = s;
+			} else if (
+				entity instanceof Item i &&
+				item == null &&
+				i.getItemStack().isSimilar(displayItem)
+			) {
+				item = i;
+			}
+		}
+
+		boolean needsNameTag = NameTag.textFor(displayItem) != null;
+		if (item == null || needsNameTag != (stand != null)) return null;
+
+		return new ItemEntityDisplay(
+			item,
+			stand != null ? NameTag.adopt(plugin, stand) : null
+		);
+	}
+
+	@Override
+	public Entity getEntity() {
+		return item;
+	}
+
+	@Override
+	public boolean hasNameTag() {
+		return nameTag != null;
+	}
+
+	@Override
+	public boolean isNameVisible(Player viewer) {
+		return nameTag != null && nameTag.isVisibleTo(viewer);
+	}
+
+	@Override
+	public void setNameVisible(Player viewer, boolean visible) {
+		if (nameTag != null) {
+			nameTag.setVisibleTo(viewer, visible);
+		}
+	}
+
+	@Override
+	public boolean owns(Entity entity) {
+		return (
+			entity.equals(item) ||
+			(nameTag != null && entity.equals(nameTag.getEntity()))
+		);
+	}
+
+	@Override
+	public void remove() {
+		if (!item.isDead()) {
+			item.remove();
+		}
+		if (nameTag != null) {
+			nameTag.remove();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Location;
+
+/**
+ * Caches line-of-sight answers per (eye block, quantized view direction, display).
+ * Entries are indexed by every chunk their ray can pass through, so a block
+ * change only drops the answers whose ray corridor contains that chunk.
+ * Entries also expire after their own TTL, far longer than the scheduler's
+ * re-check age since those re-checks are what the cache answers, to catch
+ * block changes that fire no event.
+ */
+public class LineOfSightCache {
+
+	private static final float YAW_STEP = 5.0f;
+	private static final float PITCH_STEP = 5.0f;
+	private final int maxEntries;
+	private final long maxAgeMillis;
+	private final Map<CacheKey, Entry> entries;
+	private final Map<ChunkRef, Set<CacheKey>> chunkIndex = new HashMap<>();
+	private final ChunkFilter watchedChunks;
+
+	private volatile long hits;
+	private volatile long misses;
+	private volatile long invalidations;
+	private volatile long invalidatedEntries;
+	private volatile long evictions;
+	private volatile int size;
+
+	private record CacheKey(
+		UUID world,
+		long eyeBlock,
+		int yawBucket,
+		int pitchBucket,
+		boolean bedrock,
+		long display
+	) {}
+
+	private record ChunkRef(UUID world, long chunk) {}
+
+	private record Entry(boolean visible, long createdAt, long[] corridor) {}
+
+	LineOfSightCache(
+		int maxEntries,
+		long maxAgeMillis,
+		ChunkFilter watchedChunks
+	) {
+		this.maxEntries = maxEntries;
+		this.maxAgeMillis = maxAgeMillis;
+		this.watchedChunks = watchedChunks;
+		this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<CacheKey, Entry> eldest
+			) {
+				if (size() <= LineOfSightCache.this.maxEntries) return false;
+				unindex(eldest.getKey(), eldest.getValue());
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached answer, or null if the pair has to be ray traced
+	 */
+	public Boolean get(Location eyeLoc, Location displayLoc, boolean bedrock) {
+		CacheKey key = createKey(eyeLoc, displayLoc, bedrock);
+		Entry entry = entries.get(key);
+		if (
+			entry == null ||
+			System.currentTimeMillis() - entry.createdAt() > maxAgeMillis
+		) {
+			if (entry != null) remove(key);
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.visible();
+	}
+
+	public void put(
+		Location eyeLoc,
+		Location displayLoc,
+		boolean bedrock,
+		boolean visible
+	) {
+		CacheKey key = createKey(eyeLoc, displayLoc, bedrock);
+		long[] corridor = corridorChunks(eyeLoc, displayLoc);
+		Entry previous = entries.put(
+			key,
+			new Entry(visible, System.currentTimeMillis(), corridor)
+		);
+		if (previous != null) {
+			unindex(key, previous);
+		}
+		for (long chunk : corridor) {
+			chunkIndex
+				.computeIfAbsent(new ChunkRef(key.world(), chunk), k ->
+					new HashSet<>()
+				)
+				.add(key);
+			watchedChunks.add(key.world(), chunk);
+		}
+		size = entries.size();
+	}
+
+	/**
+	 * Drops every answer whose ray corridor includes the block's chunk
+	 */
+	public void invalidate(UUID world, int blockX, int blockZ) {
+		if (chunkIndex.isEmpty()) return;
+
+		Set<CacheKey> keys = chunkIndex.remove(
+			new ChunkRef(world, BlockKeys.chunkKey(blockX >> 4, blockZ >> 4))
+		);
+		if (keys == null) return;
+
+		invalidations++;
+		for (CacheKey key : keys) {
+			Entry entry = entries.remove(key);
+			if (entry != null) {
+				unindex(key, entry);
+				invalidatedEntries++;
+			}
+		}
+		size = entries.size();
+	}
+
+	/**
+	 * Adds every chunk a cached ray covers to the filter after it was cleared
+	 */
+	void markChunks() {
+		for (ChunkRef ref : chunkIndex.keySet()) {
+			watchedChunks.add(ref.world(), ref.chunk());
+		}
+	}
+
+	public void clear() {
+		entries.clear();
+		chunkIndex.clear();
+		size = 0;
+	}
+
+	public Map<String, Object> getMetrics() {
+		long lookups = hits + misses;
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("size", size);
+		metrics.put("maxEntries", maxEntries);
+		metrics.put("hits", hits);
+		metrics.put("misses", misses);
+		metrics.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+		metrics.put("invalidations", invalidations);
+		metrics.put("invalidatedEntries", invalidatedEntries);
+		metrics.put("evictions", evictions);
+		return metrics;
+	}
+
+	private void remove(CacheKey key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			unindex(key, entry);
+		}
+		size = entries.size();
+	}
+
+	private void unindex(CacheKey key, Entry entry) {
+		for (long chunk : entry.corridor()) {
+			ChunkRef ref = new ChunkRef(key.world(), chunk);
+			Set<CacheKey> keys = chunkIndex.get(ref);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty()) {
+					chunkIndex.remove(ref);
+				}
+			}
+		}
+	}
+
+	private CacheKey createKey(
+		Location eyeLoc,
+		Location displayLoc,
+		boolean bedrock
+	) {
+		float yaw = ((eyeLoc.getYaw() % 360.0f) + 360.0f) % 360.0f;
+		return new CacheKey(
+			eyeLoc.getWorld().getUID(),
+			BlockKeys.pack(
+				eyeLoc.getBlockX(),
+				eyeLoc.getBlockY(),
+				eyeLoc.getBlockZ()
+			),
+			(int) (yaw / YAW_STEP),
+			(int) Math.floor(eyeLoc.getPitch() / PITCH_STEP),
+			bedrock,
+			BlockKeys.pack(
+				displayLoc.getBlockX(),
+				displayLoc.getBlockY(),
+				displayLoc.getBlockZ()
+			)
+		);
+	}
+
+	/**
+	 * Chunks covered by the bounding box of the ray, a superset of the chunks it crosses
+	 */
+	private long[] corridorChunks(Location from, Location to) {
+		int minX = Math.min(from.getBlockX(), to.getBlockX()) >> 4;
+		int maxX = Math.max(from.getBlockX(), to.getBlockX()) >> 4;
+		int minZ = Math.min(from.getBlockZ(), to.getBlockZ()) >> 4;
+		int maxZ = Math.max(from.getBlockZ(), to.getBlockZ()) >> 4;
+
+		long[] chunks = new long[(maxX - minX + 1) * (maxZ - minZ + 1)];
+		int i = 0;
+		for (int x = minX; x <= maxX; x++) {
+			for (int z = minZ; z <= maxZ; z++) {
+				chunks[i++] = BlockKeys.chunkKey(x, z);
+			}
+		}
+		return chunks;
+	}
+}
@@ -0,0 +1,249 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * Runs display line-of-sight checks within a per-tick time budget.
+ * Pending (player, display) pairs are processed round-robin, and every result
+ * carries the time it was computed so old answers are re-checked or hidden.
+ */
+public class LineOfSightScheduler {
+
+	// Ticks between sweeps that re-queue results older than the max age
+	private static final int SWEEP_INTERVAL = 5;
+
+	private final ByteCore plugin;
+	private final DisplayVisibilityEngine engine;
+	private final long budgetNanos;
+	private final long maxAgeNanos;
+
+	private final Map<ViewPair, PairState> pairs = new HashMap<>();
+	private final ArrayDeque<ViewPair> pending = new ArrayDeque<>();
+	private final ArrayDeque<ViewPair> overdue = new ArrayDeque<>();
+	private int queuedCount;
+	private int tickCounter;
+
+	// Metrics, written on the server thread and read by the API
+	private volatile long lastTickNanos;
+	private volatile double averageTickNanos;
+	private volatile int lastTickTraces;
+	private volatile long totalTraces;
+	private volatile long budgetExhaustedTicks;
+	private volatile long expiredResults;
+	private volatile int backlog;
+	private volatile int trackedPairs;
+	private volatile long oldestPendingNanos;
+
+	private record ViewPair(UUID playerId, Location display) {}
+
+	private static final class PairState {
+
+		private final boolean bedrock;
+		private boolean visible;
+		private boolean queued;
+		private boolean overdue;
+		private long queuedAt;
+		private long checkedAt;
+
+		private PairState(boolean bedrock) {
+			this.bedrock = bedrock;
+		}
+	}
+
+	public LineOfSightScheduler(
+		ByteCore plugin,
+		DisplayVisibilityEngine engine,
+		ConfigManager config
+	) {
+		this.plugin = plugin;
+		this.engine = engine;
+		this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(
+			config.getRayTraceBudgetMicros()
+		);
+		this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(
+			config.getRayTraceMaxAgeMillis()
+		);
+	}
+
+	/**
+	 * Queues a line-of-sight check for a pair unless one is already pending
+	 */
+	public void request(Player player, Location display, boolean bedrock) {
+		ViewPair pair = new ViewPair(player.getUniqueId(), display);
+		PairState state = pairs.computeIfAbsent(pair, k ->
+			new PairState(bedrock)
+		);
+		enqueue(pair, state, System.nanoTime());
+	}
+
+	/**
+	 * Stops tracking a pair, e.g. once the display is out of range
+	 */
+	public void cancel(UUID playerId, Location display) {
+		PairState state = pairs.remove(new ViewPair(playerId, display));
+		if (state != null && state.queued) {
+			queuedCount--;
+		}
+	}
+
+	public void forgetPlayer(UUID playerId) {
+		Iterator<Map.Entry<ViewPair, PairState>> it = pairs
+			.entrySet()
+			.iterator();
+		while (it.hasNext()) {
+			Map.Entry<ViewPair, PairState> entry = it.next();
+			if (entry.getKey().playerId().equals(playerId)) {
+				if (entry.getValue().queued) queuedCount--;
+				it.remove();
+			}
+		}
+	}
+
+	public void tick() {
+		long start = System.nanoTime();
+		if (++tickCounter % SWEEP_INTERVAL == 0) {
+			sweep(start);
+		}
+
+		long deadline = start + budgetNanos;
+		int traces = 0;
+		while (queuedCount > 0) {
+			// Always make progress, even if one trace exceeds the budget
+			if (traces > 0 && System.nanoTime() >= deadline) {
+				budgetExhaustedTicks++;
+				break;
+			}
+
+			ViewPair pair = overdue.isEmpty()
+				? pending.poll()
+				: overdue.poll();
+			if (pair == null) break;
+
+			PairState state = pairs.get(pair);
+			if (state == null || !state.queued) continue; // Cancelled or duplicate
+			state.queued = false;
+			state.overdue = false;
+			queuedCount--;
+
+			Player player = plugin.getServer().getPlayer(pair.playerId());
+			if (player == null) {
+				pairs.remove(pair);
+				continue;
+			}
+
+			state.visible = engine.evaluateLineOfSight(
+				player,
+				pair.display(),
+				state.bedrock
+			);
+			state.checkedAt = System.nanoTime();
+			engine.applyLineOfSight(player, pair.display(), state.visible);
+			traces++;
+		}
+
+		if (queuedCount == 0) {
+			// Only cancelled entries can be left behind
+			pending.clear();
+			overdue.clear();
+		}
+
+		long elapsed = System.nanoTime() - start;
+		lastTickNanos = elapsed;
+		averageTickNanos = averageTickNanos * 0.95 + elapsed * 0.05;
+		lastTickTraces = traces;
+		totalTraces += traces;
+		backlog = queuedCount;
+		trackedPairs = pairs.size();
+	}
+
+	private void enqueue(ViewPair pair, PairState state, long now) {
+		if (state.queued) return;
+		state.queued = true;
+		state.queuedAt = now;
+		queuedCount++;
+		pending.add(pair);
+	}
+
+	/**
+	 * Re-queues results past their max age, moves long-waiting checks to the
+	 * front, and hides names whose last result is too old to trust
+	 */
+	private void sweep(long now) {
+		long oldestQueuedAt = now;
+		for (Map.Entry<ViewPair, PairState> entry : pairs.entrySet()) {
+			PairState state = entry.getValue();
+			if (!state.queued) {
+				if (
+					state.checkedAt != 0 &&
+					now - state.checkedAt > maxAgeNanos
+				) {
+					enqueue(entry.getKey(), state, now);
+				}
+				continue;
+			}
+
+			oldestQueuedAt = Math.min(oldestQueuedAt, state.queuedAt);
+			if (!state.overdue && now - state.queuedAt > maxAgeNanos) {
+				state.overdue = true;
+				overdue.add(entry.getKey());
+			}
+
+			if (
+				state.visible &&
+				state.checkedAt != 0 &&
+				now - state.checkedAt > maxAgeNanos * 2
+			) {
+				Player player = plugin
+					.getServer()
+					.getPlayer(entry.getKey().playerId());
+				if (player != null) {
+					state.visible = false;
+					engine.applyLineOfSight(
+						player,
+						entry.getKey().display(),
+						false
+					);
+					expiredResults++;
+				}
+			}
+		}
+		oldestPendingNanos = now - oldestQueuedAt;
+	}
+
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put(
+			"budgetMicros",
+			TimeUnit.NANOSECONDS.toMicros(budgetNanos)
+		);
+		metrics.put(
+			"lastTickMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastTickNanos)
+		);
+		metrics.put("averageTickMicros", (long) (averageTickNanos / 1000));
+		metrics.put(
+			"budgetUsedPercent",
+			budgetNanos > 0 ? (lastTickNanos * 100) / budgetNanos : 0
+		);
+		metrics.put("tracesLastTick", lastTickTraces);
+		metrics.put("totalTraces", totalTraces);
+		metrics.put("budgetExhaustedTicks", budgetExhaustedTicks);
+		metrics.put("expiredResults", expiredResults);
+		metrics.put("backlog", backlog);
+		metrics.put("trackedPairs", trackedPairs);
+		metrics.put(
+			"oldestPendingMillis",
+			TimeUnit.NANOSECONDS.toMillis(oldestPendingNanos)
+		);
+		return metrics;
+	}
+}
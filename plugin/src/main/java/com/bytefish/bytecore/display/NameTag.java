@@ -0,0 +1,115 @@
+package com.bytefish.bytecore.display;
+
+import com.bytefish.bytecore.util.ShopUtils;
+import java.util.List;
+import java.util.UUID;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Location;
+import org.bukkit.entity.ArmorStand;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Enchantment name tag shown to individual players. The entity is hidden by
+ * default and revealed with {@link Player#showEntity}, so a change for one
+ * viewer only sends packets to that viewer. The server's own per-player
+ * visibility state is the source of truth, so nothing leaks when players leave.
+ */
+final class NameTag {
+
+	private final Plugin plugin;
+	private final Entity entity;
+
+	private NameTag(Plugin plugin, Entity entity) {
+		this.plugin = plugin;
+		this.entity = entity;
+	}
+
+	/**
+	 * Enchantment lore shown above the item, or null if it has none
+	 */
+	@Nullable
+	static Component textFor(ItemStack displayItem) {
+		if (!ShopUtils.hasEnchantments(displayItem)) return null;
+		List<Component> enchantLore = ShopUtils.getEnchantmentLore(displayItem);
+		if (enchantLore.isEmpty()) return null;
+		return Component.join(Component.text(" "), enchantLore);
+	}
+
+	/**
+	 * Invisible marker armor stand, rendered by every client version
+	 */
+	static NameTag spawnArmorStand(
+		Plugin plugin,
+		Location loc,
+		Component text,
+		DisplayTags tags,
+		UUID shopId
+	) {
+		ArmorStand stand = loc.getWorld().spawn(loc, ArmorStand.class);
+		stand.setVisibleByDefault(false);
+		stand.setMarker(true);
+		stand.setInvisible(true);
+		stand.setSmall(true);
+		stand.setGravity(false);
+		stand.setInvulnerable(true);
+		stand.customName(text);
+		stand.setCustomNameVisible(true);
+		tags.tag(stand, shopId, DisplayTags.ROLE_NAME_TAG);
+		return new NameTag(plugin, stand);
+	}
+
+	static NameTag spawnTextDisplay(
+		Plugin plugin,
+		Location loc,
+		Component text,
+		float viewRange,
+		DisplayTags tags,
+		UUID shopId
+	) {
+		TextDisplay textDisplay = loc.getWorld().spawn(loc, TextDisplay.class);
+		textDisplay.setVisibleByDefault(false);
+		textDisplay.text(text);
+		textDisplay.setBillboard(Display.Billboard.CENTER);
+		textDisplay.setViewRange(viewRange);
+		tags.tag(textDisplay, shopId, DisplayTags.ROLE_NAME_TAG);
+		return new NameTag(plugin, textDisplay);
+	}
+
+	/**
+	 * Takes over a name tag that was saved with its chunk
+	 */
+	static NameTag adopt(Plugin plugin, Entity entity) {
+		// Hidden until the visibility engine shows it to a viewer
+		entity.setVisibleByDefault(false);
+		return new NameTag(plugin, entity);
+	}
+
+	Entity getEntity() {
+		return entity;
+	}
+
+	boolean isVisibleTo(Player player) {
+		return player.canSee(entity);
+	}
+
+	void setVisibleTo(Player player, boolean visible) {
+		if (player.canSee(entity) == visible) return;
+		if (visible) {
+			player.showEntity(plugin, entity);
+		} else {
+			player.hideEntity(plugin, entity);
+		}
+	}
+
+	void remove() {
+		if (!entity.isDead()) {
+			entity.remove();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.bytefish.bytecore.display;
+
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+/**
+ * A spawned shop display: the floating item plus its enchantment name tag
+ */
+public interface ShopDisplay {
+	/**
+	 * The entity showing the item
+	 */
+	Entity getEntity();
+
+	default UUID getId() {
+		return getEntity().getUniqueId();
+	}
+
+	/**
+	 * Where the display is rendered, used for distance and line-of-sight checks
+	 */
+	default Location getLocation() {
+		return getEntity().getLocation();
+	}
+
+	default boolean isValid() {
+		return getEntity().isValid() && !getEntity().isDead();
+	}
+
+	/**
+	 * Only enchanted items carry a name tag
+	 */
+	boolean hasNameTag();
+
+	/**
+	 * Whether the name tag is currently shown to this player
+	 */
+	boolean isNameVisible(Player viewer);
+
+	/**
+	 * Shows or hides the name tag for a single player, sending packets only
+	 * to that player and only when their visibility changes
+	 */
+	void setNameVisible(Player viewer, boolean visible);
+
+	/**
+	 * Checks whether an entity is part of this display
+	 */
+	boolean owns(Entity entity);
+
+	void remove();
+}
@@ -0,0 +1,16 @@
+package com.bytefish.bytecore.ledger;
+
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One page of query results, newest first. A null cursor means there is
+ * nothing older to fetch.
+ */
+public record LedgerPage(
+	List<LedgerRecord> records,
+	@Nullable Long nextCursor,
+	int blocksRead
+) {
+	static final LedgerPage EMPTY = new LedgerPage(List.of(), null, 0);
+}
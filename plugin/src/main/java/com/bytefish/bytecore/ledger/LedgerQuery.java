@@ -0,0 +1,67 @@
+package com.bytefish.bytecore.ledger;
+
+import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Filter for ledger history. Null filters match everything; the time range
+ * is [from, to) in epoch millis. Results come newest first, and a page
+ * continues from the records older than the {@code before} sequence.
+ */
+public record LedgerQuery(
+	@Nullable UUID shopId,
+	@Nullable UUID buyerId,
+	@Nullable String item,
+	long from,
+	long to,
+	long before,
+	int limit
+) {
+	public static final int MAX_LIMIT = 500;
+
+	public LedgerQuery {
+		limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
+	public static LedgerQuery forShop(UUID shopId, int limit) {
+		return new LedgerQuery(
+			shopId,
+			null,
+			null,
+			0,
+			Long.MAX_VALUE,
+			Long.MAX_VALUE,
+			limit
+		);
+	}
+
+	public static LedgerQuery forBuyer(UUID buyerId, int limit) {
+		return new LedgerQuery(
+			null,
+			buyerId,
+			null,
+			0,
+			Long.MAX_VALUE,
+			Long.MAX_VALUE,
+			limit
+		);
+	}
+
+	/**
+	 * The same query continuing after the given cursor
+	 */
+	public LedgerQuery before(long cursor) {
+		return new LedgerQuery(shopId, buyerId, item, from, to, cursor, limit);
+	}
+
+	public boolean matches(LedgerRecord record) {
+		return (
+			record.sequence() < before &&
+			record.timestamp() >= from &&
+			record.timestamp() < to &&
+			(shopId == null || shopId.equals(record.shopId())) &&
+			(buyerId == null || buyerId.equals(record.buyerId())) &&
+			(item == null || item.equals(record.selling()))
+		);
+	}
+}
@@ -0,0 +1,200 @@
+package com.bytefish.bytecore.ledger;
+
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.models.ShopTransaction;
+import com.bytefish.bytecore.models.ShopTransaction.TransactionStatus;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One transaction as stored in the ledger. Players are kept by UUID only,
+ * items by namespaced key, so a record never pins a Player or an ItemStack.
+ *
+ * <p>On disk each record is a frame: payload length, payload, CRC32 of the
+ * payload. A torn or corrupt frame at the end of a segment is detected by
+ * its length or checksum and cut off on recovery.
+ */
+public record LedgerRecord(
+	long sequence,
+	long timestamp,
+	UUID transactionId,
+	UUID shopId,
+	UUID ownerId,
+	UUID buyerId,
+	TransactionStatus status,
+	int lots,
+	String selling,
+	int sellingAmount,
+	String price,
+	int priceAmount,
+	@Nullable String failureReason
+) {
+	private static final int FORMAT_VERSION = 1;
+	// Frames claiming more than this are treated as corrupt
+	private static final int MAX_PAYLOAD = 64 * 1024;
+	private static final TransactionStatus[] STATUSES =
+		TransactionStatus.values();
+
+	/**
+	 * Captures a finished transaction. The sequence is assigned by the writer.
+	 */
+	public static LedgerRecord of(ShopTransaction transaction) {
+		Shop shop = transaction.getShop();
+		return new LedgerRecord(
+			0,
+			transaction.getTimestamp(),
+			transaction.getId(),
+			shop.getId(),
+			shop.getOwnerUUID(),
+			transaction.getBuyer().getUniqueId(),
+			transaction.getStatus(),
+			transaction.getLots(),
+			shop.getSellingType().getKey().toString(),
+			shop.getSellingAmount(),
+			shop.getPriceType().getKey().toString(),
+			shop.getPriceAmount(),
+			transaction.getFailureReason()
+		);
+	}
+
+	public LedgerRecord withSequence(long sequence) {
+		return new LedgerRecord(
+			sequence,
+			timestamp,
+			transactionId,
+			shopId,
+			ownerId,
+			buyerId,
+			status,
+			lots,
+			selling,
+			sellingAmount,
+			price,
+			priceAmount,
+			failureReason
+		);
+	}
+
+	/**
+	 * Encodes the record as a complete frame
+	 */
+	public byte[] toFrame() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(FORMAT_VERSION);
+			out.writeLong(sequence);
+			out.writeLong(timestamp);
+			writeUuid(out, transactionId);
+			writeUuid(out, shopId);
+			writeUuid(out, ownerId);
+			writeUuid(out, buyerId);
+			out.writeByte(status.ordinal());
+			out.writeInt(lots);
+			out.writeUTF(selling);
+			out.writeInt(sellingAmount);
+			out.writeUTF(price);
+			out.writeInt(priceAmount);
+			out.writeUTF(failureReason != null ? failureReason : "");
+			byte[] payload = bytes.toByteArray();
+
+			ByteArrayOutputStream frame = new ByteArrayOutputStream(
+				payload.length + 8
+			);
+			DataOutputStream frameOut = new DataOutputStream(frame);
+			frameOut.writeInt(payload.length);
+			frameOut.write(payload);
+			frameOut.writeInt((int) checksum(payload));
+			return frame.toByteArray();
+		} catch (IOException e) {
+			// Writing to a byte array never fails
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads the next frame, or returns null at the end of the stream or at
+	 * the first incomplete or corrupt frame
+	 */
+	@Nullable
+	public static LedgerRecord readFrame(DataInputStream in)
+		throws IOException {
+		byte[] payload;
+		try {
+			int length = in.readInt();
+			if (length <= 0 || length > MAX_PAYLOAD) return null;
+			payload = new byte[length];
+			in.readFully(payload);
+			if ((int) checksum(payload) != in.readInt()) return null;
+		} catch (EOFException e) {
+			return null;
+		}
+
+		DataInputStream data = new DataInputStream(
+			new ByteArrayInputStream(payload)
+		);
+		try {
+			return decode(data);
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	@Nullable
+	private static LedgerRecord decode(DataInputStream data)
+		throws IOException {
+		if (data.readUnsignedByte() != FORMAT_VERSION) return null;
+		long sequence = data.readLong();
+		long timestamp = data.readLong();
+		UUID transactionId = readUuid(data);
+		UUID shopId = readUuid(data);
+		UUID ownerId = readUuid(data);
+		UUID buyerId = readUuid(data);
+		int status = data.readUnsignedByte();
+		if (status >= STATUSES.length) return null;
+		int lots = data.readInt();
+		String selling = data.readUTF();
+		int sellingAmount = data.readInt();
+		String price = data.readUTF();
+		int priceAmount = data.readInt();
+		String failureReason = data.readUTF();
+		return new LedgerRecord(
+			sequence,
+			timestamp,
+			transactionId,
+			shopId,
+			ownerId,
+			buyerId,
+			STATUSES[status],
+			lots,
+			selling,
+			sellingAmount,
+			price,
+			priceAmount,
+			failureReason.isEmpty() ? null : failureReason
+		);
+	}
+
+	private static long checksum(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return crc.getValue();
+	}
+
+	private static void writeUuid(DataOutputStream out, UUID id)
+		throws IOException {
+		out.writeLong(id.getMostSignificantBits());
+		out.writeLong(id.getLeastSignificantBits());
+	}
+
+	private static UUID readUuid(DataInputStream in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+}
@@ -0,0 +1,322 @@
+package com.bytefish.bytecore.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sparse index of one ledger segment. Records are grouped into blocks of
+ * {@link #BLOCK_RECORDS}; each block keeps its byte range, sequence range
+ * and time range, and each shop, buyer and item maps to the set of blocks it
+ * appears in. A query reads only the blocks that can hold a match.
+ *
+ * <p>The writer thread adds records as they are written while readers
+ * select blocks, so both go through the index lock. Sealed segments keep
+ * their index in a sidecar file next to the segment.
+ */
+public final class SegmentIndex {
+
+	static final int BLOCK_RECORDS = 128;
+	private static final String SUFFIX = ".idx";
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * A run of consecutive records, [offset, end) in the segment file
+	 */
+	public record Block(
+		long offset,
+		long end,
+		long firstSequence,
+		long lastSequence,
+		long minTimestamp,
+		long maxTimestamp
+	) {
+		private boolean overlaps(LedgerQuery query) {
+			return (
+				firstSequence < query.before() &&
+				maxTimestamp >= query.from() &&
+				minTimestamp < query.to()
+			);
+		}
+	}
+
+	private final Path segment;
+	private final List<Block> blocks = new ArrayList<>();
+	private final Map<UUID, BitSet> shops = new HashMap<>();
+	private final Map<UUID, BitSet> buyers = new HashMap<>();
+	private final Map<String, BitSet> items = new HashMap<>();
+	private int openBlockRecords;
+
+	SegmentIndex(Path segment) {
+		this.segment = segment;
+	}
+
+	public Path getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Indexes a record written at the given offset
+	 */
+	synchronized void add(LedgerRecord record, long offset, int length) {
+		long end = offset + length;
+		if (blocks.isEmpty() || openBlockRecords >= BLOCK_RECORDS) {
+			blocks.add(
+				new Block(
+					offset,
+					end,
+					record.sequence(),
+					record.sequence(),
+					record.timestamp(),
+					record.timestamp()
+				)
+			);
+			openBlockRecords = 0;
+		} else {
+			Block open = blocks.get(blocks.size() - 1);
+			blocks.set(
+				blocks.size() - 1,
+				new Block(
+					open.offset(),
+					end,
+					open.firstSequence(),
+					record.sequence(),
+					Math.min(open.minTimestamp(), record.timestamp()),
+					Math.max(open.maxTimestamp(), record.timestamp())
+				)
+			);
+		}
+		openBlockRecords++;
+
+		int block = blocks.size() - 1;
+		shops.computeIfAbsent(record.shopId(), k -> new BitSet()).set(block);
+		buyers.computeIfAbsent(record.buyerId(), k -> new BitSet()).set(block);
+		items.computeIfAbsent(record.selling(), k -> new BitSet()).set(block);
+	}
+
+	/**
+	 * Blocks that may hold matches for the query, newest first
+	 */
+	synchronized List<Block> select(LedgerQuery query) {
+		BitSet candidates = new BitSet(blocks.size());
+		candidates.set(0, blocks.size());
+		if (!narrow(candidates, shops, query.shopId())) return List.of();
+		if (!narrow(candidates, buyers, query.buyerId())) return List.of();
+		if (!narrow(candidates, items, query.item())) return List.of();
+
+		List<Block> selected = new ArrayList<>();
+		for (
+			int i = candidates.previousSetBit(blocks.size() - 1);
+			i >= 0;
+			i = candidates.previousSetBit(i - 1)
+		) {
+			Block block = blocks.get(i);
+			if (block.overlaps(query)) {
+				selected.add(block);
+			}
+		}
+		return selected;
+	}
+
+	private static <K> boolean narrow(
+		BitSet candidates,
+		Map<K, BitSet> postings,
+		@Nullable K key
+	) {
+		if (key == null) return true;
+		BitSet blocksWithKey = postings.get(key);
+		if (blocksWithKey == null) return false;
+		candidates.and(blocksWithKey);
+		return !candidates.isEmpty();
+	}
+
+	/**
+	 * Bytes covered by indexed records, the valid length of the segment
+	 */
+	synchronized long getLength() {
+		return blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).end();
+	}
+
+	synchronized long getLastSequence() {
+		return blocks.isEmpty()
+			? TransactionLedger.firstSequence(segment) - 1
+			: blocks.get(blocks.size() - 1).lastSequence();
+	}
+
+	/**
+	 * Indexes a segment by reading it front to back, stopping at the first
+	 * incomplete or corrupt frame
+	 */
+	static SegmentIndex scan(Path segment) throws IOException {
+		SegmentIndex index = new SegmentIndex(segment);
+		byte[] data = Files.readAllBytes(segment);
+		DataInputStream in = new DataInputStream(
+			new ByteArrayInputStream(data)
+		);
+		long offset = 0;
+		LedgerRecord record;
+		while ((record = LedgerRecord.readFrame(in)) != null) {
+			long end = data.length - in.available();
+			index.add(record, offset, (int) (end - offset));
+			offset = end;
+		}
+		return index;
+	}
+
+	/**
+	 * Loads the sidecar of a sealed segment, rebuilding it if it is missing,
+	 * damaged or older than the segment
+	 */
+	static SegmentIndex loadOrScan(Path segment) throws IOException {
+		Path sidecar = sidecarOf(segment);
+		if (
+			Files.exists(sidecar) &&
+			Files.getLastModifiedTime(sidecar).compareTo(
+				Files.getLastModifiedTime(segment)
+			) >=
+			0
+		) {
+			SegmentIndex index = read(segment, Files.readAllBytes(sidecar));
+			if (index != null) return index;
+		}
+		SegmentIndex index = scan(segment);
+		index.save();
+		return index;
+	}
+
+	/**
+	 * Writes the sidecar, replacing any previous one in a single move
+	 */
+	synchronized void save() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(FORMAT_VERSION);
+		out.writeInt(blocks.size());
+		for (Block block : blocks) {
+			out.writeLong(block.offset());
+			out.writeLong(block.end());
+			out.writeLong(block.firstSequence());
+			out.writeLong(block.lastSequence());
+			out.writeLong(block.minTimestamp());
+			out.writeLong(block.maxTimestamp());
+		}
+		out.writeInt(openBlockRecords);
+		writeUuidPostings(out, shops);
+		writeUuidPostings(out, buyers);
+		out.writeInt(items.size());
+		for (Map.Entry<String, BitSet> entry : items.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeBits(out, entry.getValue());
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+
+		Path sidecar = sidecarOf(segment);
+		Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+		Files.write(temp, bytes.toByteArray());
+		Files.move(
+			temp,
+			sidecar,
+			StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE
+		);
+	}
+
+	@Nullable
+	private static SegmentIndex read(Path segment, byte[] data) {
+		if (data.length < Long.BYTES) return null;
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length - Long.BYTES);
+		DataInputStream in = new DataInputStream(
+			new ByteArrayInputStream(data)
+		);
+		try {
+			in.skipNBytes(data.length - Long.BYTES);
+			if (in.readLong() != crc.getValue()) return null;
+
+			in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readUnsignedByte() != FORMAT_VERSION) return null;
+			SegmentIndex index = new SegmentIndex(segment);
+			int blockCount = in.readInt();
+			for (int i = 0; i < blockCount; i++) {
+				index.blocks.add(
+					new Block(
+						in.readLong(),
+						in.readLong(),
+						in.readLong(),
+						in.readLong(),
+						in.readLong(),
+						in.readLong()
+					)
+				);
+			}
+			index.openBlockRecords = in.readInt();
+			readUuidPostings(in, index.shops);
+			readUuidPostings(in, index.buyers);
+			int itemCount = in.readInt();
+			for (int i = 0; i < itemCount; i++) {
+				index.items.put(in.readUTF(), readBits(in));
+			}
+			return index;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static void writeUuidPostings(
+		DataOutputStream out,
+		Map<UUID, BitSet> postings
+	) throws IOException {
+		out.writeInt(postings.size());
+		for (Map.Entry<UUID, BitSet> entry : postings.entrySet()) {
+			out.writeLong(entry.getKey().getMostSignificantBits());
+			out.writeLong(entry.getKey().getLeastSignificantBits());
+			writeBits(out, entry.getValue());
+		}
+	}
+
+	private static void readUuidPostings(
+		DataInputStream in,
+		Map<UUID, BitSet> postings
+	) throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			postings.put(new UUID(in.readLong(), in.readLong()), readBits(in));
+		}
+	}
+
+	private static void writeBits(DataOutputStream out, BitSet bits)
+		throws IOException {
+		long[] words = bits.toLongArray();
+		out.writeShort(words.length);
+		for (long word : words) {
+			out.writeLong(word);
+		}
+	}
+
+	private static BitSet readBits(DataInputStream in) throws IOException {
+		long[] words = new long[in.readUnsignedShort()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		return BitSet.valueOf(words);
+	}
+
+	static Path sidecarOf(Path segment) {
+		return segment.resolveSibling(segment.getFileName() + SUFFIX);
+	}
+}
@@ -0,0 +1,538 @@
+package com.bytefish.bytecore.ledger;
+
+import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.models.ShopTransaction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Append-only history of shop transactions. The server thread only queues
+ * records; a single writer thread drains the queue in batches, appends each
+ * batch with one write and fsyncs at most once per configured interval, so
+ * many transactions share one disk sync. Segments are named after the first
+ * sequence they hold and a new one is started once the current one is full.
+ *
+ * <p>Every segment has a {@link SegmentIndex}, so history queries read only
+ * the blocks that can match instead of replaying the log.
+ */
+public class TransactionLedger {
+
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final int MAX_BATCH = 1024;
+	private static final int QUEUE_CAPACITY = 65_536;
+	private static final long IDLE_POLL_MILLIS = 100;
+
+	private final ByteCore plugin;
+	private final File directory;
+	private final boolean enabled;
+	private final long fsyncIntervalNanos;
+	private final long segmentBytes;
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(
+		QUEUE_CAPACITY
+	);
+	private Thread writer;
+	private volatile boolean running;
+	private volatile List<SegmentIndex> sealed = List.of();
+	private volatile SegmentIndex active;
+
+	// Writer thread only, after start
+	private FileChannel channel;
+	private volatile Path segment;
+	private long segmentSize;
+	private long nextSequence = 1;
+	private boolean unsynced;
+	private long lastFsyncAt;
+
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private final AtomicLong fsyncs = new AtomicLong();
+	private final AtomicLong segmentsRotated = new AtomicLong();
+	private final AtomicLong queueNanos = new AtomicLong();
+	private volatile long lastQueueNanos;
+	private volatile long maxQueueNanos;
+	private volatile long lastFsyncNanos;
+	private volatile long startedAt;
+
+	private final AtomicLong queries = new AtomicLong();
+	private final AtomicLong queryNanos = new AtomicLong();
+	private final AtomicLong blocksRead = new AtomicLong();
+
+	private record Pending(LedgerRecord record, long queuedAt) {}
+
+	private record Framed(LedgerRecord record, int length) {}
+
+	public TransactionLedger(ByteCore plugin, ConfigManager config) {
+		this.plugin = plugin;
+		this.directory = new File(plugin.getDataFolder(), "ledger");
+		this.enabled = config.isLedgerEnabled();
+		this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+			config.getLedgerFsyncIntervalMillis()
+		);
+		this.segmentBytes = config.getLedgerSegmentBytes();
+	}
+
+	/**
+	 * Loads segment indexes, recovers the newest segment and starts the writer
+	 */
+	public void start() {
+		if (!enabled || running) return;
+		try {
+			directory.mkdirs();
+			recover();
+		} catch (IOException e) {
+			plugin
+				.getLogger()
+				.log(Level.SEVERE, "Transaction ledger disabled", e);
+			return;
+		}
+
+		running = true;
+		startedAt = System.nanoTime();
+		lastFsyncAt = startedAt;
+		writer = new Thread(this::run, "ByteCore-Ledger");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queues a finished transaction. Never blocks; if the writer has fallen
+	 * this far behind the record is dropped and counted.
+	 */
+	public void record(ShopTransaction transaction) {
+		if (!running) return;
+		Pending pending = new Pending(
+			LedgerRecord.of(transaction),
+			System.nanoTime()
+		);
+		if (queue.offer(pending)) {
+			queued.incrementAndGet();
+		} else {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Writes everything still queued, syncs and closes the segment
+	 */
+	public void shutdown() {
+		if (!running) return;
+		// Not interrupted: an interrupt would close the channel mid-write
+		running = false;
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Finds matching records, newest first. Reads segment files, so call it
+	 * off the main thread.
+	 */
+	public LedgerPage query(LedgerQuery query) throws IOException {
+		// Active first, so a segment sealed meanwhile is seen once, never missed
+		SegmentIndex current = active;
+		if (current == null) return LedgerPage.EMPTY;
+		List<SegmentIndex> segments = new ArrayList<>();
+		segments.add(current);
+		List<SegmentIndex> older = sealed;
+		for (int i = older.size() - 1; i >= 0; i--) {
+			if (older.get(i) != current) {
+				segments.add(older.get(i));
+			}
+		}
+
+		long start = System.nanoTime();
+		List<LedgerRecord> found = new ArrayList<>();
+		int read = 0;
+		Long nextCursor = null;
+		search: for (SegmentIndex index : segments) {
+			if (firstSequence(index.getSegment()) >= query.before()) continue;
+			List<SegmentIndex.Block> blocks = index.select(query);
+			if (blocks.isEmpty()) continue;
+
+			try (
+				FileChannel file = FileChannel.open(
+					index.getSegment(),
+					StandardOpenOption.READ
+				)
+			) {
+				for (SegmentIndex.Block block : blocks) {
+					List<LedgerRecord> records = readBlock(file, block);
+					read++;
+					for (int i = records.size() - 1; i >= 0; i--) {
+						LedgerRecord record = records.get(i);
+						if (!query.matches(record)) continue;
+						found.add(record);
+						if (found.size() == query.limit()) {
+							nextCursor = record.sequence();
+							break search;
+						}
+					}
+				}
+			}
+		}
+
+		queries.incrementAndGet();
+		queryNanos.addAndGet(System.nanoTime() - start);
+		blocksRead.addAndGet(read);
+		return new LedgerPage(found, nextCursor, read);
+	}
+
+	private static List<LedgerRecord> readBlock(
+		FileChannel file,
+		SegmentIndex.Block block
+	) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(
+			(int) (block.end() - block.offset())
+		);
+		while (bytes.hasRemaining()) {
+			if (file.read(bytes, block.offset() + bytes.position()) < 0) break;
+		}
+		DataInputStream in = new DataInputStream(
+			new ByteArrayInputStream(bytes.array(), 0, bytes.position())
+		);
+		List<LedgerRecord> records = new ArrayList<>(
+			SegmentIndex.BLOCK_RECORDS
+		);
+		LedgerRecord record;
+		while ((record = LedgerRecord.readFrame(in)) != null) {
+			records.add(record);
+		}
+		return records;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public Map<String, Object> getMetrics() {
+		long writtenCount = written.get();
+		long batchCount = batches.get();
+		double uptimeSeconds = running
+			? (System.nanoTime() - startedAt) / 1e9
+			: 0;
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("enabled", running);
+		metrics.put("queueDepth", queue.size());
+		metrics.put("queued", queued.get());
+		metrics.put("dropped", dropped.get());
+		metrics.put("written", writtenCount);
+		metrics.put("batches", batchCount);
+		metrics.put(
+			"averageBatchSize",
+			batchCount > 0 ? (double) writtenCount / batchCount : 0
+		);
+		metrics.put("bytesWritten", bytesWritten.get());
+		metrics.put(
+			"recordsPerSecond",
+			uptimeSeconds > 0 ? writtenCount / uptimeSeconds : 0
+		);
+		metrics.put("fsyncs", fsyncs.get());
+		metrics.put(
+			"lastFsyncMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastFsyncNanos)
+		);
+		metrics.put("segmentsRotated", segmentsRotated.get());
+		metrics.put("segments", sealed.size() + (active != null ? 1 : 0));
+		long queryCount = queries.get();
+		metrics.put("queries", queryCount);
+		metrics.put(
+			"averageQueryMicros",
+			queryCount > 0
+				? TimeUnit.NANOSECONDS.toMicros(queryNanos.get() / queryCount)
+				: 0
+		);
+		metrics.put("blocksRead", blocksRead.get());
+		Path current = segment;
+		metrics.put(
+			"segment",
+			current != null ? current.getFileName().toString() : null
+		);
+		metrics.put(
+			"lastQueueLatencyMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastQueueNanos)
+		);
+		metrics.put(
+			"averageQueueLatencyMicros",
+			writtenCount > 0
+				? TimeUnit.NANOSECONDS.toMicros(queueNanos.get() / writtenCount)
+				: 0
+		);
+		metrics.put(
+			"maxQueueLatencyMicros",
+			TimeUnit.NANOSECONDS.toMicros(maxQueueNanos)
+		);
+		return metrics;
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>(MAX_BATCH);
+		while (running || !queue.isEmpty()) {
+			try {
+				Pending first = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, MAX_BATCH - 1);
+					long firstSequence = nextSequence;
+					try {
+						writeBatch(batch);
+					} catch (IOException e) {
+						long kept = restoreAfterFailure() - firstSequence;
+						dropped.addAndGet(batch.size() - Math.max(0, kept));
+						throw e;
+					} finally {
+						batch.clear();
+					}
+				}
+				if (
+					unsynced &&
+					System.nanoTime() - lastFsyncAt >= fsyncIntervalNanos
+				) {
+					sync();
+				}
+			} catch (InterruptedException e) {
+				running = false;
+			} catch (IOException e) {
+				plugin
+					.getLogger()
+					.log(Level.SEVERE, "Failed to write transaction ledger", e);
+			}
+		}
+
+		try {
+			if (unsynced) sync();
+			channel.close();
+		} catch (IOException e) {
+			plugin
+				.getLogger()
+				.log(Level.SEVERE, "Failed to close transaction ledger", e);
+		}
+	}
+
+	private long pollMillis() {
+		long intervalMillis = TimeUnit.NANOSECONDS.toMillis(fsyncIntervalNanos);
+		return unsynced
+			? Math.max(1, Math.min(IDLE_POLL_MILLIS, intervalMillis))
+			: IDLE_POLL_MILLIS;
+	}
+
+	private void writeBatch(List<Pending> batch) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+			batch.size() * 160
+		);
+		List<Framed> framed = new ArrayList<>(batch.size());
+		long now = System.nanoTime();
+		for (Pending pending : batch) {
+			LedgerRecord record = pending.record().withSequence(nextSequence);
+			byte[] frame = record.toFrame();
+			if (
+				segmentSize + buffer.size() + frame.length > segmentBytes &&
+				segmentSize + buffer.size() > 0
+			) {
+				append(buffer, framed);
+				rotate();
+			}
+			buffer.write(frame);
+			framed.add(new Framed(record, frame.length));
+			nextSequence++;
+
+			long waited = now - pending.queuedAt();
+			lastQueueNanos = waited;
+			queueNanos.addAndGet(waited);
+			if (waited > maxQueueNanos) maxQueueNanos = waited;
+		}
+		append(buffer, framed);
+		written.addAndGet(batch.size());
+		batches.incrementAndGet();
+	}
+
+	/**
+	 * Writes the buffered frames and indexes them once they are in the file
+	 */
+	private void append(ByteArrayOutputStream buffer, List<Framed> framed)
+		throws IOException {
+		if (buffer.size() == 0) return;
+		ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		long offset = segmentSize;
+		for (Framed frame : framed) {
+			active.add(frame.record(), offset, frame.length());
+			offset += frame.length();
+		}
+		framed.clear();
+		segmentSize += buffer.size();
+		bytesWritten.addAndGet(buffer.size());
+		buffer.reset();
+		unsynced = true;
+	}
+
+	/**
+	 * Brings the segment back in line with its index after a failed write:
+	 * reopens it if a rotation closed it, cuts off anything written past
+	 * the last indexed record and continues the sequence from there.
+	 * Returns the next sequence.
+	 */
+	private long restoreAfterFailure() {
+		try {
+			if (!channel.isOpen()) {
+				openSegment(segment, active);
+			}
+			segmentSize = active.getLength();
+			if (channel.size() > segmentSize) {
+				channel.truncate(segmentSize);
+			}
+		} catch (IOException e) {
+			// Tried again after the next failed batch
+			plugin
+				.getLogger()
+				.log(Level.SEVERE, "Failed to restore transaction ledger", e);
+		}
+		nextSequence = active.getLastSequence() + 1;
+		return nextSequence;
+	}
+
+	private void sync() throws IOException {
+		long start = System.nanoTime();
+		channel.force(false);
+		lastFsyncNanos = System.nanoTime() - start;
+		lastFsyncAt = System.nanoTime();
+		fsyncs.incrementAndGet();
+		unsynced = false;
+	}
+
+	private void rotate() throws IOException {
+		sync();
+		// The next segment is opened first, so a failure leaves this one active
+		FileChannel previousChannel = channel;
+		SegmentIndex previous = active;
+		openSegment(segmentPath(nextSequence));
+
+		List<SegmentIndex> withSealed = new ArrayList<>(sealed);
+		withSealed.add(previous);
+		sealed = List.copyOf(withSealed);
+		segmentsRotated.incrementAndGet();
+
+		previousChannel.close();
+		previous.save();
+	}
+
+	/**
+	 * Loads the index of every sealed segment and opens the newest segment
+	 * for appending. A torn frame left by a crash is cut off, and the
+	 * sequence continues after the last intact record.
+	 */
+	private void recover() throws IOException {
+		List<Path> segments = listSegments(directory);
+		if (segments.isEmpty()) {
+			openSegment(segmentPath(1));
+			return;
+		}
+
+		List<SegmentIndex> indexes = new ArrayList<>(segments.size() - 1);
+		for (Path path : segments.subList(0, segments.size() - 1)) {
+			indexes.add(SegmentIndex.loadOrScan(path));
+		}
+		sealed = List.copyOf(indexes);
+
+		Path newest = segments.get(segments.size() - 1);
+		SegmentIndex index = SegmentIndex.scan(newest);
+		long validLength = index.getLength();
+		openSegment(newest, index);
+		if (validLength < channel.size()) {
+			plugin
+				.getLogger()
+				.warning(
+					"Truncating " +
+					(channel.size() - validLength) +
+					" damaged bytes from ledger segment " +
+					newest.getFileName()
+				);
+			channel.truncate(validLength);
+			channel.force(true);
+		}
+		segmentSize = validLength;
+		nextSequence = index.getLastSequence() + 1;
+	}
+
+	private void openSegment(Path path) throws IOException {
+		openSegment(path, new SegmentIndex(path));
+	}
+
+	private void openSegment(Path path, SegmentIndex index)
+		throws IOException {
+		channel = FileChannel.open(
+			path,
+			StandardOpenOption.CREATE,
+			StandardOpenOption.WRITE,
+			StandardOpenOption.APPEND
+		);
+		segment = path;
+		segmentSize = channel.size();
+		active = index;
+	}
+
+	private Path segmentPath(long firstSequence) {
+		return directory
+			.toPath()
+			.resolve(String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Segment files of a ledger directory, oldest first
+	 */
+	static List<Path> listSegments(File directory) {
+		File[] files = directory.listFiles((dir, name) ->
+			name.endsWith(SEGMENT_SUFFIX)
+		);
+		if (files == null) return List.of();
+		Arrays.sort(files);
+		List<Path> segments = new ArrayList<>(files.length);
+		for (File file : files) {
+			if (parseFirstSequence(file.getName()) != null) {
+				segments.add(file.toPath());
+			}
+		}
+		return segments;
+	}
+
+	static long firstSequence(Path segment) {
+		Long sequence = parseFirstSequence(segment.getFileName().toString());
+		return sequence != null ? sequence : 1;
+	}
+
+	@Nullable
+	private static Long parseFirstSequence(String name) {
+		try {
+			return Long.parseLong(
+				name.substring(0, name.length() - SEGMENT_SUFFIX.length())
+			);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -4,7 +4,10 @@ import com.bytefish.bytecore.managers.ShopManager;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 public class ChunkLoadListener implements Listener {
 
@@ -14,8 +17,23 @@ public class ChunkLoadListener implements Listener {
 		this.shopManager = shopManager;
 	}
 
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onEntitiesLoad(EntitiesLoadEvent event) {
+		shopManager.handleEntitiesLoad(event.getChunk(), event.getEntities());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkUnload(ChunkUnloadEvent event) {
+		shopManager.handleChunkUnload(event.getChunk());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onWorldLoad(WorldLoadEvent event) {
+		shopManager.handleWorldLoad(event.getWorld());
+	}
+
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-	public void onChunkLoad(ChunkLoadEvent event) {
-		shopManager.handleChunkLoad(event.getChunk());
+	public void onWorldUnload(WorldUnloadEvent event) {
+		shopManager.handleWorldUnload(event.getWorld());
 	}
 }
@@ -20,6 +20,8 @@ public class CommandCompletionListener implements Listener {
 		this.commands = new HashSet<>(
 			Arrays.asList(
 				"shophelp",
+				"shopfind",
+				"shopnear",
 				"locationhelp",
 				"rules",
 				"msg",
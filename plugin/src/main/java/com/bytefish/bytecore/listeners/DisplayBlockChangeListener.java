@@ -0,0 +1,36 @@
+package com.bytefish.bytecore.listeners;
+
+import com.bytefish.bytecore.display.DisplayVisibilityEngine;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+
+public class DisplayBlockChangeListener implements Listener {
+
+	private final DisplayVisibilityEngine visibilityEngine;
+
+	public DisplayBlockChangeListener(
+		DisplayVisibilityEngine visibilityEngine
+	) {
+		this.visibilityEngine = visibilityEngine;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockPlace(BlockPlaceEvent event) {
+		visibilityEngine.handleBlockChange(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockBreak(BlockBreakEvent event) {
+		visibilityEngine.handleBlockChange(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onBlockPhysics(BlockPhysicsEvent event) {
+		// The hottest event on the server; most calls end at the chunk filter
+		visibilityEngine.handleBlockChange(event.getBlock());
+	}
+}
@@ -1,9 +1,8 @@
 package com.bytefish.bytecore.listeners;
 
+import com.bytefish.bytecore.config.ConfigManager;
 import com.bytefish.bytecore.managers.LocationManager;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.block.Block;
-import org.bukkit.block.Sign;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -15,11 +14,14 @@ import org.bukkit.event.entity.EntityExplodeEvent;
 public class LocationSignDestroyListener implements Listener {
 
 	private final LocationManager locationManager;
-	private final PlainTextComponentSerializer textSerializer =
-		PlainTextComponentSerializer.plainText();
+	private final ConfigManager configManager;
 
-	public LocationSignDestroyListener(LocationManager locationManager) {
+	public LocationSignDestroyListener(
+		LocationManager locationManager,
+		ConfigManager configManager
+	) {
 		this.locationManager = locationManager;
+		this.configManager = configManager;
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -40,9 +42,11 @@ public class LocationSignDestroyListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockPhysics(BlockPhysicsEvent event) {
 		Block block = event.getBlock();
-		if (block.getState() instanceof Sign) {
+		if (isLocationSign(block)) {
 			if (
-				!block.getType().toString().contains("WALL_SIGN") &&
+				!configManager
+					.getBlockClassifier()
+					.isWallSign(block.getType()) &&
 				!block.getRelative(0, -1, 0).getType().isSolid()
 			) {
 				checkAndRemoveLocationSign(block);
@@ -51,20 +55,22 @@ public class LocationSignDestroyListener implements Listener {
 	}
 
 	private void checkAndRemoveLocationSign(Block block) {
-		if (!(block.getState() instanceof Sign sign)) {
+		if (!isLocationSign(block)) {
 			return;
 		}
 
-		String firstLine = textSerializer.serialize(sign.line(0));
-		String secondLine = textSerializer.serialize(sign.line(1));
+		locationManager.removeLocationAtPosition(
+			block.getX(),
+			block.getY(),
+			block.getZ(),
+			block.getWorld()
+		);
+	}
 
-		if (firstLine.equalsIgnoreCase("Location")) {
-			locationManager.removeLocationAtPosition(
-				block.getLocation().getX(),
-				block.getLocation().getY(),
-				block.getLocation().getZ(),
-				block.getWorld()
-			);
-		}
+	private boolean isLocationSign(Block block) {
+		return (
+			configManager.getBlockClassifier().isSign(block.getType()) &&
+			locationManager.isLocationSign(block)
+		);
 	}
 }
@@ -58,7 +58,7 @@ public class ShopCreationListener implements Listener {
 			return;
 		}
 
-		if (shopManager.isShop(attachedBlock.getLocation())) {
+		if (shopManager.isShop(attachedBlock)) {
 			event
 				.getPlayer()
 				.sendMessage(
@@ -97,9 +97,9 @@ public class ShopCreationListener implements Listener {
 
 		if (
 			configManager.isValidShopContainer(block.getType()) &&
-			shopManager.isShop(block.getLocation())
+			shopManager.isShop(block)
 		) {
-			Shop shop = shopManager.getShop(block.getLocation());
+			Shop shop = shopManager.getShop(block);
 			if (shop != null) {
 				if (
 					!event.getPlayer().getUniqueId().equals(shop.getOwnerUUID())
@@ -112,19 +112,12 @@ public class ShopCreationListener implements Listener {
 			return;
 		}
 
-		if (block.getBlockData() instanceof WallSign) {
-			Block attached = getAttachedBlock(block);
-			if (
-				attached != null && shopManager.isShop(attached.getLocation())
-			) {
-				Shop shop = shopManager.getShop(attached.getLocation());
-				if (
-					shop != null &&
-					!event.getPlayer().getUniqueId().equals(shop.getOwnerUUID())
-				) {
-					event.setCancelled(true);
-				}
-			}
+		Shop signShop = shopManager.getShopForSign(block);
+		if (
+			signShop != null &&
+			!event.getPlayer().getUniqueId().equals(signShop.getOwnerUUID())
+		) {
+			event.setCancelled(true);
 		}
 	}
 
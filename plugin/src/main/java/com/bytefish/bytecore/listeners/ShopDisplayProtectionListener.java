@@ -1,7 +1,6 @@
 package com.bytefish.bytecore.listeners;
 
-import org.bukkit.entity.Entity;
-import org.bukkit.entity.Item;
+import com.bytefish.bytecore.display.DisplayTags;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -12,38 +11,36 @@ import org.bukkit.event.player.PlayerInteractEntityEvent;
 
 public class ShopDisplayProtectionListener implements Listener {
 
-	private static final String SHOP_DISPLAY_METADATA = "shop_display";
+	private final DisplayTags displayTags;
+
+	public ShopDisplayProtectionListener(DisplayTags displayTags) {
+		this.displayTags = displayTags;
+	}
 
 	@EventHandler(priority = EventPriority.HIGHEST)
 	public void onItemPickup(EntityPickupItemEvent event) {
-		if (event.getItem().hasMetadata(SHOP_DISPLAY_METADATA)) {
+		if (displayTags.isDisplay(event.getItem())) {
 			event.setCancelled(true);
 		}
 	}
 
 	@EventHandler(priority = EventPriority.HIGHEST)
 	public void onItemDespawn(ItemDespawnEvent event) {
-		if (event.getEntity().hasMetadata(SHOP_DISPLAY_METADATA)) {
+		if (displayTags.isDisplay(event.getEntity())) {
 			event.setCancelled(true);
 		}
 	}
 
 	@EventHandler(priority = EventPriority.HIGHEST)
 	public void onEntityInteract(PlayerInteractEntityEvent event) {
-		Entity entity = event.getRightClicked();
-		if (
-			entity instanceof Item && entity.hasMetadata(SHOP_DISPLAY_METADATA)
-		) {
+		if (displayTags.isDisplay(event.getRightClicked())) {
 			event.setCancelled(true);
 		}
 	}
 
 	@EventHandler(priority = EventPriority.HIGHEST)
 	public void onEntityDamage(EntityDamageEvent event) {
-		Entity entity = event.getEntity();
-		if (
-			entity instanceof Item && entity.hasMetadata(SHOP_DISPLAY_METADATA)
-		) {
+		if (displayTags.isDisplay(event.getEntity())) {
 			event.setCancelled(true);
 		}
 	}
@@ -7,7 +7,6 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.block.Block;
 import org.bukkit.block.Container;
-import org.bukkit.block.Sign;
 import org.bukkit.block.data.type.WallSign;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -16,6 +15,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.InventoryHolder;
@@ -47,15 +47,12 @@ public class ShopInteractionListener implements Listener {
 		Block containerBlock = block;
 		boolean isSignClick = false;
 
-		if (block.getState() instanceof Sign sign) {
-			if (block.getBlockData() instanceof WallSign wallSign) {
-				containerBlock = block.getRelative(
-					wallSign.getFacing().getOppositeFace()
-				);
-				isSignClick = true;
-			} else {
-				return;
-			}
+		if (shopManager.isShopSign(block)) {
+			WallSign wallSign = (WallSign) block.getBlockData();
+			containerBlock = block.getRelative(
+				wallSign.getFacing().getOppositeFace()
+			);
+			isSignClick = true;
 		}
 
 		// Check if this is a shop container
@@ -64,11 +61,7 @@ public class ShopInteractionListener implements Listener {
 		}
 
 		// Check if this is a shop
-		if (!shopManager.isShop(containerBlock.getLocation())) {
-			return;
-		}
-
-		Shop shop = shopManager.getShop(containerBlock.getLocation());
+		Shop shop = shopManager.getShop(containerBlock);
 		if (shop == null) {
 			return;
 		}
@@ -106,111 +99,14 @@ public class ShopInteractionListener implements Listener {
 			return;
 		}
 
-		// First verify the shop sign is still valid
-		if (!shopManager.verifyShopSign(containerBlock.getLocation())) {
-			player.sendMessage(
-				Component.text(
-					"This shop's sign is broken! Please notify the owner."
-				).color(NamedTextColor.RED)
-			);
-			return;
-		}
-
-		// Get the container
-		if (!(containerBlock.getState() instanceof Container container)) {
-			player.sendMessage(
-				Component.text("This shop's container is missing!").color(
-					NamedTextColor.RED
-				)
-			);
-			return;
-		}
-
-		// Check shop stock
-		if (
-			!shopManager.hasStock(
-				container.getInventory(),
-				shop.getSellingItem(),
-				shop.getSellingAmount()
-			)
-		) {
-			player.sendMessage(
-				Component.text("This shop is out of stock!").color(
-					NamedTextColor.RED
-				)
-			);
-			return;
-		}
-
-		// Check if container has space for payment
-		if (
-			!shopManager.hasSpace(
-				container.getInventory(),
-				shop.getPriceItem(),
-				shop.getPriceAmount()
-			)
-		) {
-			player.sendMessage(
-				Component.text(
-					"This shop is full and cannot accept payment!"
-				).color(NamedTextColor.RED)
-			);
-			return;
-		}
-
-		// Check if player has the payment items
-		if (
-			!shopManager.hasItems(
-				player.getInventory(),
-				shop.getPriceItem(),
-				shop.getPriceAmount()
-			)
-		) {
-			String itemName = shop
-				.getPriceItem()
-				.getType()
-				.toString()
-				.toLowerCase()
-				.replace('_', ' ');
-			player.sendMessage(
-				Component.text()
-					.append(
-						Component.text("You need ").color(NamedTextColor.RED)
-					)
-					.append(
-						Component.text(shop.getPriceAmount() + "x ").color(
-							NamedTextColor.YELLOW
-						)
-					)
-					.append(Component.text(itemName).color(NamedTextColor.RED))
-					.append(
-						Component.text(" to make this purchase!").color(
-							NamedTextColor.RED
-						)
-					)
-					.build()
-			);
-			return;
-		}
-
-		// Check if player has inventory space
-		if (
-			!shopManager.hasSpace(
-				player.getInventory(),
-				shop.getSellingItem(),
-				shop.getSellingAmount()
-			)
-		) {
-			player.sendMessage(
-				Component.text("You don't have enough inventory space!").color(
-					NamedTextColor.RED
-				)
-			);
-			return;
-		}
-
-		// Process the transaction
-		shopManager.processTransaction(shop, player);
+		// Sign, container, stock and payment are all checked when the
+		// purchase runs, so none of it is repeated here.
+		// Sneaking buys as many lots as fit in one go.
+		shopManager.processTransaction(
+			shop,
+			player,
+			player.isSneaking() ? configManager.getBulkPurchaseMaxLots() : 1
+		);
 	}
 
 	@EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
@@ -219,8 +115,8 @@ public class ShopInteractionListener implements Listener {
 
 		// Check if breaking a container
 		if (configManager.isValidShopContainer(block.getType())) {
-			if (shopManager.isShop(block.getLocation())) {
-				Shop shop = shopManager.getShop(block.getLocation());
+			if (shopManager.isShop(block)) {
+				Shop shop = shopManager.getShop(block);
 				if (
 					shop != null &&
 					!event.getPlayer().getUniqueId().equals(shop.getOwnerUUID())
@@ -239,29 +135,19 @@ public class ShopInteractionListener implements Listener {
 		}
 
 		// Check if breaking a sign
+		Shop signShop = shopManager.getShopForSign(block);
 		if (
-			block.getState() instanceof Sign &&
-			block.getBlockData() instanceof WallSign wallSign
+			signShop != null &&
+			!event.getPlayer().getUniqueId().equals(signShop.getOwnerUUID())
 		) {
-			Block containerBlock = block.getRelative(
-				wallSign.getFacing().getOppositeFace()
-			);
-			if (shopManager.isShop(containerBlock.getLocation())) {
-				Shop shop = shopManager.getShop(containerBlock.getLocation());
-				if (
-					shop != null &&
-					!event.getPlayer().getUniqueId().equals(shop.getOwnerUUID())
-				) {
-					event.setCancelled(true);
-					event
-						.getPlayer()
-						.sendMessage(
-							Component.text(
-								"You cannot break another player's shop sign!"
-							).color(NamedTextColor.RED)
-						);
-				}
-			}
+			event.setCancelled(true);
+			event
+				.getPlayer()
+				.sendMessage(
+					Component.text(
+						"You cannot break another player's shop sign!"
+					).color(NamedTextColor.RED)
+				);
 		}
 	}
 
@@ -274,9 +160,9 @@ public class ShopInteractionListener implements Listener {
 		InventoryHolder holder = event.getInventory().getHolder();
 		if (
 			holder instanceof Container container &&
-			shopManager.isShop(container.getLocation())
+			shopManager.isShop(container.getBlock())
 		) {
-			Shop shop = shopManager.getShop(container.getLocation());
+			Shop shop = shopManager.getShop(container.getBlock());
 			if (
 				shop != null &&
 				!player.getUniqueId().equals(shop.getOwnerUUID())
@@ -295,9 +181,9 @@ public class ShopInteractionListener implements Listener {
 		InventoryHolder holder = event.getInventory().getHolder();
 		if (
 			holder instanceof Container container &&
-			shopManager.isShop(container.getLocation())
+			shopManager.isShop(container.getBlock())
 		) {
-			Shop shop = shopManager.getShop(container.getLocation());
+			Shop shop = shopManager.getShop(container.getBlock());
 			if (
 				shop != null &&
 				!player.getUniqueId().equals(shop.getOwnerUUID())
@@ -306,4 +192,21 @@ public class ShopInteractionListener implements Listener {
 			}
 		}
 	}
+
+	// Owners edit their shops by hand, so the stock counters go stale on any
+	// accepted click and are recounted once the container is closed
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onShopInventoryClick(InventoryClickEvent event) {
+		shopManager.invalidateStock(event.getInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onShopInventoryDrag(InventoryDragEvent event) {
+		shopManager.invalidateStock(event.getInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onInventoryClose(InventoryCloseEvent event) {
+		shopManager.recountStock(event.getInventory());
+	}
 }
@@ -1,13 +1,13 @@
 package com.bytefish.bytecore.listeners;
 
+import com.bytefish.bytecore.config.ConfigManager;
 import com.bytefish.bytecore.managers.ShopManager;
 import java.util.HashSet;
 import java.util.Set;
+import org.bukkit.Location;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockState;
 import org.bukkit.block.Container;
-import org.bukkit.block.Sign;
-import org.bukkit.block.data.type.WallSign;
+import org.bukkit.block.DoubleChest;
 import org.bukkit.entity.EntityType;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -16,14 +16,21 @@ import org.bukkit.event.block.*;
 import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 
 public class ShopProtectionListener implements Listener {
 
 	private final ShopManager shopManager;
+	private final ConfigManager configManager;
 	private final Set<EntityType> protectedEntities;
 
-	public ShopProtectionListener(ShopManager shopManager) {
+	public ShopProtectionListener(
+		ShopManager shopManager,
+		ConfigManager configManager
+	) {
 		this.shopManager = shopManager;
+		this.configManager = configManager;
 		this.protectedEntities = new HashSet<>();
 		initProtectedEntities();
 	}
@@ -103,39 +110,59 @@ public class ShopProtectionListener implements Listener {
 
 	@EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
 	public void onInventoryMove(InventoryMoveItemEvent event) {
-		if (
-			event.getSource().getHolder() instanceof
-				Container sourceContainer &&
-			shopManager.isShop(sourceContainer.getLocation())
-		) {
+		if (isShopInventory(event.getSource())) {
 			event.setCancelled(true);
 			return;
 		}
 
-		if (
-			event.getDestination().getHolder() instanceof
-				Container destContainer &&
-			shopManager.isShop(destContainer.getLocation())
-		) {
+		if (isShopInventory(event.getDestination())) {
 			event.setCancelled(true);
 		}
 	}
 
-	private boolean isProtectedBlock(Block block) {
-		return shopManager.isShop(block.getLocation());
-	}
-
-	private boolean isShopSign(Block block) {
+	private boolean isShopInventory(Inventory inventory) {
+		// Nearly no hopper touches a shop, so rule out shop-free chunks before
+		// the holder (and its block state) is ever looked at
+		Location loc = inventory.getLocation();
 		if (
-			!(block.getState() instanceof Sign) ||
-			!(block.getBlockData() instanceof WallSign wallSign)
+			loc == null ||
+			loc.getWorld() == null ||
+			!shopManager.hasShopsNear(
+				loc.getWorld(),
+				loc.getBlockX(),
+				loc.getBlockZ()
+			)
 		) {
 			return false;
 		}
 
-		Block attachedBlock = block.getRelative(
-			wallSign.getFacing().getOppositeFace()
+		InventoryHolder holder = inventory.getHolder(false);
+		if (holder instanceof DoubleChest doubleChest) {
+			return (
+				isShopHolder(doubleChest.getLeftSide(false)) ||
+				isShopHolder(doubleChest.getRightSide(false))
+			);
+		}
+		return isShopHolder(holder);
+	}
+
+	private boolean isShopHolder(InventoryHolder holder) {
+		return (
+			holder instanceof Container container &&
+			shopManager.isShop(container.getBlock())
 		);
-		return shopManager.isShop(attachedBlock.getLocation());
+	}
+
+	private boolean isProtectedBlock(Block block) {
+		// Not the configured shop containers: existing shops stay protected
+		// even after their container type is removed from the config
+		return (
+			configManager.getBlockClassifier().isContainer(block.getType()) &&
+			shopManager.isShop(block)
+		);
+	}
+
+	private boolean isShopSign(Block block) {
+		return shopManager.isShopSign(block);
 	}
 }
@@ -1,6 +1,7 @@
 package com.bytefish.bytecore.listeners;
 
 import com.bytefish.bytecore.ByteCore;
+import com.bytefish.bytecore.config.ConfigManager;
 import com.bytefish.bytecore.managers.LocationManager;
 import com.bytefish.bytecore.managers.ShopManager;
 import com.bytefish.bytecore.models.Location;
@@ -9,11 +10,10 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.bukkit.Material;
+import org.bukkit.Tag;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
-import org.bukkit.block.Sign;
 import org.bukkit.block.data.type.WallSign;
-import org.bukkit.block.sign.Side;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -26,6 +26,7 @@ public class SignListener implements Listener {
 
 	private final ShopManager shopManager;
 	private final LocationManager locationManager;
+	private final ConfigManager configManager;
 	private final PlainTextComponentSerializer textSerializer =
 		PlainTextComponentSerializer.plainText();
 	private final ByteCore plugin;
@@ -34,12 +35,13 @@ public class SignListener implements Listener {
 		this.plugin = plugin;
 		this.shopManager = plugin.getShopManager();
 		this.locationManager = plugin.getLocationManager();
+		this.configManager = plugin.getConfigManager();
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockExplode(BlockExplodeEvent event) {
 		for (Block block : event.blockList()) {
-			if (block.getState() instanceof Sign) {
+			if (isLocationSign(block)) {
 				handleSignDestruction(block, null);
 			} else {
 				checkAttachedSigns(block);
@@ -50,7 +52,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onEntityExplode(EntityExplodeEvent event) {
 		for (Block block : event.blockList()) {
-			if (block.getState() instanceof Sign) {
+			if (isLocationSign(block)) {
 				handleSignDestruction(block, null);
 			} else {
 				checkAttachedSigns(block);
@@ -61,7 +63,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockBurn(BlockBurnEvent event) {
 		Block block = event.getBlock();
-		if (block.getState() instanceof Sign) {
+		if (isLocationSign(block)) {
 			handleSignDestruction(block, null);
 		} else {
 			checkAttachedSigns(block);
@@ -71,19 +73,14 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockPhysics(BlockPhysicsEvent event) {
 		Block block = event.getBlock();
-		if (block.getState() instanceof Sign) {
+		if (isLocationSign(block)) {
 			Block attachedTo = getAttachedBlock(block);
 			if (
 				attachedTo != null &&
 				(attachedTo.getType().isAir() ||
 					!attachedTo.getType().isSolid())
 			) {
-				plugin
-					.getServer()
-					.getScheduler()
-					.runTask(plugin, () -> {
-						handleSignDestruction(block, null);
-					});
+				handleSignBreakLater(block);
 			}
 		}
 	}
@@ -91,7 +88,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onEntityChangeBlock(EntityChangeBlockEvent event) {
 		Block block = event.getBlock();
-		if (block.getState() instanceof Sign) {
+		if (isLocationSign(block)) {
 			handleSignDestruction(block, null);
 		}
 		checkAttachedSigns(block);
@@ -100,7 +97,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockFromTo(BlockFromToEvent event) {
 		Block toBlock = event.getToBlock();
-		if (toBlock.getState() instanceof Sign) {
+		if (isLocationSign(toBlock)) {
 			handleSignDestruction(toBlock, null);
 		}
 	}
@@ -108,7 +105,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onPistonExtend(BlockPistonExtendEvent event) {
 		for (Block block : event.getBlocks()) {
-			if (block.getState() instanceof Sign) {
+			if (isLocationSign(block)) {
 				handleSignDestruction(block, null);
 			}
 			checkAttachedSigns(block);
@@ -121,7 +118,7 @@ public class SignListener implements Listener {
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onPistonRetract(BlockPistonRetractEvent event) {
 		for (Block block : event.getBlocks()) {
-			if (block.getState() instanceof Sign) {
+			if (isLocationSign(block)) {
 				handleSignDestruction(block, null);
 			}
 			checkAttachedSigns(block);
@@ -148,30 +145,28 @@ public class SignListener implements Listener {
 		}
 
 		Block block = event.getClickedBlock();
-		if (block.getState() instanceof Sign && isProtectedSign(block)) {
+		if (isProtectedSign(block)) {
 			// Cancel any right-click interaction with protected signs
 			event.setCancelled(true);
 		}
 	}
 
 	private boolean isProtectedSign(Block block) {
-		if (!(block.getState() instanceof Sign sign)) {
-			return false;
+		if (shopManager.isShopSign(block)) {
+			return true;
 		}
 
-		// Check if it's a shop sign
-		if (block.getBlockData() instanceof WallSign wallSign) {
-			Block attached = block.getRelative(
-				wallSign.getFacing().getOppositeFace()
-			);
-			if (shopManager.isShop(attached.getLocation())) {
-				return true;
-			}
-		}
+		return isLocationSign(block);
+	}
 
-		// Check if it's a location sign
-		String firstLine = textSerializer.serialize(sign.line(0));
-		return firstLine != null && firstLine.equalsIgnoreCase("Location");
+	/**
+	 * A registered location sign that is still standing
+	 */
+	private boolean isLocationSign(Block block) {
+		return (
+			configManager.getBlockClassifier().isSign(block.getType()) &&
+			locationManager.isLocationSign(block)
+		);
 	}
 
 	private void checkAttachedSigns(Block block) {
@@ -184,33 +179,37 @@ public class SignListener implements Listener {
 
 		for (org.bukkit.block.BlockFace face : faces) {
 			Block relative = block.getRelative(face);
-			if (relative.getState() instanceof Sign sign) {
-				if (isWallSign(sign)) {
-					org.bukkit.block.data.type.WallSign wallSign =
-						(org.bukkit.block.data.type.WallSign) sign.getBlockData();
-					if (wallSign.getFacing().getOppositeFace() == face) {
-						plugin
-							.getServer()
-							.getScheduler()
-							.runTask(plugin, () -> {
-								handleSignDestruction(relative, null);
-							});
-					}
-				}
+			if (!locationManager.isLocationSign(relative)) {
+				continue;
+			}
+			// A wall sign hanging off this block faces away from it
+			if (
+				relative.getBlockData() instanceof WallSign wallSign &&
+				wallSign.getFacing() == face
+			) {
+				handleSignBreakLater(relative);
 			}
 		}
 	}
 
-	private boolean isWallSign(Sign sign) {
-		return sign.getBlock().getType().name().contains("WALL_SIGN");
+	/**
+	 * Removes the location next tick if its sign has popped off by then
+	 */
+	private void handleSignBreakLater(Block block) {
+		plugin
+			.getServer()
+			.getScheduler()
+			.runTask(plugin, () -> {
+				if (!Tag.ALL_SIGNS.isTagged(block.getType())) {
+					handleSignDestruction(block, null);
+				}
+			});
 	}
 
 	private Block getAttachedBlock(Block signBlock) {
-		if (!(signBlock.getState() instanceof Sign sign) || !isWallSign(sign)) {
+		if (!(signBlock.getBlockData() instanceof WallSign wallSign)) {
 			return null;
 		}
-		org.bukkit.block.data.type.WallSign wallSign =
-			(org.bukkit.block.data.type.WallSign) sign.getBlockData();
 		return signBlock.getRelative(wallSign.getFacing().getOppositeFace());
 	}
 
@@ -218,77 +217,50 @@ public class SignListener implements Listener {
 		Block block,
 		org.bukkit.entity.Player player
 	) {
-		if (!(block.getState() instanceof Sign sign)) {
-			return;
-		}
-
-		if (isLocationSign(block)) {
-			String locationName = textSerializer.serialize(
-				sign.getSide(Side.FRONT).line(1)
-			);
-			if (locationName == null || locationName.isEmpty()) {
-				return;
-			}
-
+		// Looked up by position, the sign may already be gone
+		Optional<Location> location = locationManager.getLocationAtSign(block);
+		location.ifPresent(loc -> {
+			String locationName = loc.getName();
 			plugin
 				.getLogger()
 				.info("Attempting to remove location sign: " + locationName);
 
-			Optional<Location> location = locationManager.getLocationByName(
-				locationName
-			);
-			location.ifPresent(loc -> {
-				if (player != null) {
-					if (
-						!loc.getOwner().equals(player.getName()) &&
-						!player.hasPermission("bytecore.location.removeany")
-					) {
-						return;
-					}
-					player.sendMessage(
-						Component.text("Location marker removed!").color(
-							NamedTextColor.GREEN
-						)
-					);
+			if (player != null) {
+				if (
+					!loc.getOwner().equals(player.getName()) &&
+					!player.hasPermission("bytecore.location.removeany")
+				) {
+					return;
 				}
+				player.sendMessage(
+					Component.text("Location marker removed!").color(
+						NamedTextColor.GREEN
+					)
+				);
+			}
 
-				plugin
-					.getLogger()
-					.info(
-						"Removing location: " +
-						locationName +
-						" (triggered by " +
-						(player != null ? player.getName() : "environment") +
-						")"
-					);
-
-				boolean removed = locationManager.removeLocation(loc.getId());
-				plugin
-					.getLogger()
-					.info(
-						"Location removal result for " +
-						locationName +
-						": " +
-						removed
-					);
-
-				locationManager.removeLocation(loc.getId());
-
-				locationManager.saveAll();
-			});
-		}
-	}
-
-	private boolean isLocationSign(Block block) {
-		if (!(block.getState() instanceof Sign sign)) {
-			return false;
-		}
-
-		// Check the actual sign content
-		String firstLine = textSerializer.serialize(
-			sign.getSide(Side.FRONT).line(0)
-		);
-		return firstLine != null && firstLine.equalsIgnoreCase("Location");
+			plugin
+				.getLogger()
+				.info(
+					"Removing location: " +
+					locationName +
+					" (triggered by " +
+					(player != null ? player.getName() : "environment") +
+					")"
+				);
+
+			boolean removed = locationManager.removeLocation(loc.getId());
+			plugin
+				.getLogger()
+				.info(
+					"Location removal result for " +
+					locationName +
+					": " +
+					removed
+				);
+
+			locationManager.saveAll();
+		});
 	}
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
@@ -317,15 +289,6 @@ public class SignListener implements Listener {
 	}
 
 	private boolean isShopSign(Block block) {
-		if (!(block.getState() instanceof Sign sign) || !isWallSign(sign)) {
-			return false;
-		}
-
-		org.bukkit.block.data.type.WallSign wallSign =
-			(org.bukkit.block.data.type.WallSign) sign.getBlockData();
-		Block attached = block.getRelative(
-			wallSign.getFacing().getOppositeFace()
-		);
-		return shopManager.isShop(attached.getLocation());
+		return shopManager.isShopSign(block);
 	}
 }
@@ -24,6 +24,7 @@ public class LocationManager {
 	private final ByteCore plugin;
 	private final Map<UUID, Location> locations;
 	private final Map<String, Set<UUID>> playerLocations;
+	private final SignRegistry signs;
 	private final File locationsFile;
 	private final Gson gson;
 	private final PlainTextComponentSerializer textSerializer =
@@ -33,6 +34,7 @@ public class LocationManager {
 		this.plugin = plugin;
 		this.locations = new ConcurrentHashMap<>();
 		this.playerLocations = new ConcurrentHashMap<>();
+		this.signs = plugin.getSignRegistry();
 		this.locationsFile = new File(plugin.getDataFolder(), "locations.json");
 		this.gson = new GsonBuilder().setPrettyPrinting().create();
 		loadLocations();
@@ -88,6 +90,7 @@ public class LocationManager {
 		for (UUID id : toRemove) {
 			Location location = locations.remove(id);
 			if (location != null) {
+				signs.removeLocationSign(location);
 				playerLocations
 					.getOrDefault(location.getOwner(), new HashSet<>())
 					.remove(id);
@@ -175,6 +178,7 @@ public class LocationManager {
 		);
 
 		locations.put(location.getId(), location);
+		signs.addLocationSign(location);
 		playerLocations
 			.computeIfAbsent(player.getUniqueId().toString(), k ->
 				new HashSet<>()
@@ -189,6 +193,7 @@ public class LocationManager {
 		Location location = locations.get(locationId);
 		if (location != null) {
 			locations.remove(locationId);
+			signs.removeLocationSign(location);
 			playerLocations
 				.getOrDefault(location.getOwner(), new HashSet<>())
 				.remove(locationId);
@@ -331,24 +336,34 @@ public class LocationManager {
 		double z,
 		World world
 	) {
-		locations
-			.values()
-			.stream()
-			.filter(
-				loc ->
-					loc.getWorld().equals(world.getName()) &&
-					loc.getX() == x &&
-					loc.getY() == y &&
-					loc.getZ() == z
-			)
-			.findFirst()
-			.ifPresent(location -> {
-				locations.remove(location.getId());
-				playerLocations
-					.getOrDefault(location.getOwner(), new HashSet<>())
-					.remove(location.getId());
-				saveAll();
-			});
+		SignRegistry.Entry entry = signs.get(
+			world,
+			(int) Math.floor(x),
+			(int) Math.floor(y),
+			(int) Math.floor(z)
+		);
+		if (entry == null || entry.getLocationId() == null) return;
+
+		if (removeLocation(entry.getLocationId())) {
+			saveAll();
+		}
+	}
+
+	/**
+	 * Returns the location whose sign is at the block, from the sign registry
+	 * alone; the sign itself may already be gone
+	 */
+	public Optional<Location> getLocationAtSign(Block block) {
+		SignRegistry.Entry entry = signs.get(block);
+		if (entry == null || entry.getLocationId() == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(locations.get(entry.getLocationId()));
+	}
+
+	public boolean isLocationSign(Block block) {
+		SignRegistry.Entry entry = signs.get(block);
+		return entry != null && entry.getLocationId() != null;
 	}
 
 	private void loadLocations() {
@@ -373,6 +388,7 @@ public class LocationManager {
 						)
 						.add(location.getId());
 				}
+				signs.replaceLocationSigns(loadedLocations);
 			}
 		} catch (IOException e) {
 			plugin
@@ -436,15 +452,12 @@ public class LocationManager {
 	}
 
 	public boolean hasLocationAtPosition(org.bukkit.Location location) {
-		return locations
-			.values()
-			.stream()
-			.anyMatch(
-				loc ->
-					loc.getWorld().equals(location.getWorld().getName()) &&
-					loc.getX() == location.getX() &&
-					loc.getY() == location.getY() &&
-					loc.getZ() == location.getZ()
-			);
+		SignRegistry.Entry entry = signs.get(
+			location.getWorld(),
+			location.getBlockX(),
+			location.getBlockY(),
+			location.getBlockZ()
+		);
+		return entry != null && entry.getLocationId() != null;
 	}
 }
@@ -0,0 +1,126 @@
+package com.bytefish.bytecore.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs each shop's commands in the order they were submitted, on the main
+ * thread and without locks. A command runs in place when it is submitted
+ * on the main thread and nothing is waiting for its shop. Otherwise it
+ * joins that shop's queue, which drains on the next tick.
+ */
+public final class ShopCommandQueue {
+
+	private record Command(Runnable action, long queuedAt) {}
+
+	private final Plugin plugin;
+	private final Map<UUID, Queue<Command>> pending = new ConcurrentHashMap<>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	private final AtomicLong executed = new AtomicLong();
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong waitNanos = new AtomicLong();
+	private volatile long lastWaitNanos;
+	private volatile long maxWaitNanos;
+	private volatile int maxDepth;
+
+	public ShopCommandQueue(Plugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void submit(UUID shopId, Runnable action) {
+		if (Bukkit.isPrimaryThread()) {
+			Queue<Command> waiting = pending.get(shopId);
+			if (waiting == null || waiting.isEmpty()) {
+				run(action);
+				return;
+			}
+		}
+
+		Command command = new Command(action, System.nanoTime());
+		// compute() keeps this from racing the drain dropping an empty queue
+		pending.compute(shopId, (id, waiting) -> {
+			Queue<Command> queue = waiting != null
+				? waiting
+				: new ConcurrentLinkedQueue<>();
+			queue.add(command);
+			if (queue.size() > maxDepth) maxDepth = queue.size();
+			return queue;
+		});
+
+		if (drainScheduled.compareAndSet(false, true)) {
+			Bukkit.getScheduler().runTask(plugin, this::drain);
+		}
+	}
+
+	private void drain() {
+		drainScheduled.set(false);
+		for (UUID shopId : pending.keySet()) {
+			Queue<Command> queue = pending.get(shopId);
+			Command command;
+			while (queue != null && (command = queue.poll()) != null) {
+				long waited = System.nanoTime() - command.queuedAt();
+				queued.incrementAndGet();
+				lastWaitNanos = waited;
+				waitNanos.addAndGet(waited);
+				if (waited > maxWaitNanos) maxWaitNanos = waited;
+				run(command.action());
+			}
+			pending.computeIfPresent(shopId, (id, waiting) ->
+				waiting.isEmpty() ? null : waiting
+			);
+		}
+	}
+
+	private void run(Runnable action) {
+		try {
+			action.run();
+			executed.incrementAndGet();
+		} catch (RuntimeException e) {
+			failed.incrementAndGet();
+			plugin.getLogger().log(Level.SEVERE, "Shop command failed", e);
+		}
+	}
+
+	public Map<String, Object> getMetrics() {
+		long queuedCount = queued.get();
+		int depth = 0;
+		for (Queue<Command> queue : pending.values()) {
+			depth += queue.size();
+		}
+
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("executed", executed.get());
+		metrics.put("failed", failed.get());
+		metrics.put("queued", queuedCount);
+		metrics.put("waiting", depth);
+		metrics.put("shopsWaiting", pending.size());
+		metrics.put("maxDepth", maxDepth);
+		metrics.put(
+			"lastWaitMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastWaitNanos)
+		);
+		metrics.put(
+			"averageWaitMicros",
+			queuedCount > 0
+				? TimeUnit.NANOSECONDS.toMicros(waitNanos.get() / queuedCount)
+				: 0
+		);
+		metrics.put(
+			"maxWaitMicros",
+			TimeUnit.NANOSECONDS.toMicros(maxWaitNanos)
+		);
+		return metrics;
+	}
+}
@@ -0,0 +1,300 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Inverted indexes over the shops: by selling material, by each enchantment
+ * on the selling item, by price material and by owner. A query starts from
+ * the smallest matching bucket and only filters that, so it never scans every
+ * shop. Buckets are immutable arrays; an update copies the affected buckets
+ * and publishes a new snapshot, so readers on the API threads need no lock.
+ */
+public class ShopIndex {
+
+	private static final Shop[] NO_SHOPS = new Shop[0];
+
+	private volatile Snapshot snapshot = Snapshot.empty();
+
+	private static final class Snapshot {
+
+		// Indexed by Material ordinal, null when no shop uses the material
+		private final Shop[][] bySelling;
+		private final Shop[][] byPrice;
+		private final Map<Enchantment, Shop[]> byEnchantment;
+		private final Map<UUID, Shop[]> byOwner;
+
+		private Snapshot(
+			Shop[][] bySelling,
+			Shop[][] byPrice,
+			Map<Enchantment, Shop[]> byEnchantment,
+			Map<UUID, Shop[]> byOwner
+		) {
+			this.bySelling = bySelling;
+			this.byPrice = byPrice;
+			this.byEnchantment = byEnchantment;
+			this.byOwner = byOwner;
+		}
+
+		private static Snapshot empty() {
+			int materials = Material.values().length;
+			return new Snapshot(
+				new Shop[materials][],
+				new Shop[materials][],
+				Map.of(),
+				Map.of()
+			);
+		}
+	}
+
+	/**
+	 * Finds shops matching every given criterion; null criteria are ignored.
+	 * With no criteria at all nothing matches.
+	 */
+	public List<Shop> find(
+		@Nullable Material selling,
+		@Nullable Enchantment enchantment,
+		@Nullable Material price
+	) {
+		Snapshot current = snapshot;
+		Shop[] smallest = null;
+		if (selling != null) {
+			smallest = smaller(smallest, current.bySelling[selling.ordinal()]);
+		}
+		if (enchantment != null) {
+			smallest = smaller(
+				smallest,
+				current.byEnchantment.get(enchantment)
+			);
+		}
+		if (price != null) {
+			smallest = smaller(smallest, current.byPrice[price.ordinal()]);
+		}
+		if (smallest == null || smallest.length == 0) {
+			return List.of();
+		}
+
+		int criteria =
+			(selling != null ? 1 : 0) +
+			(enchantment != null ? 1 : 0) +
+			(price != null ? 1 : 0);
+		if (criteria == 1) {
+			// The bucket is the answer, hand it out without copying
+			return Collections.unmodifiableList(Arrays.asList(smallest));
+		}
+
+		List<Shop> matches = new ArrayList<>();
+		for (Shop shop : smallest) {
+			if (matches(shop, selling, enchantment, price)) {
+				matches.add(shop);
+			}
+		}
+		return matches;
+	}
+
+	private static boolean matches(
+		Shop shop,
+		@Nullable Material selling,
+		@Nullable Enchantment enchantment,
+		@Nullable Material price
+	) {
+		return (
+			(selling == null || shop.getSellingType() == selling) &&
+			(price == null || shop.getPriceType() == price) &&
+			(enchantment == null ||
+				enchantmentsOf(shop.getSellingTemplate()).contains(enchantment))
+		);
+	}
+
+	public List<Shop> getByOwner(UUID owner) {
+		Shop[] shops = snapshot.byOwner.get(owner);
+		return shops != null
+			? Collections.unmodifiableList(Arrays.asList(shops))
+			: List.of();
+	}
+
+	public synchronized void add(Shop shop) {
+		update(shop, true);
+	}
+
+	public synchronized void remove(Shop shop) {
+		update(shop, false);
+	}
+
+	/**
+	 * Rebuilds every index from scratch in one pass
+	 */
+	public synchronized void replaceAll(Collection<Shop> shops) {
+		int materials = Material.values().length;
+		List<List<Shop>> selling = new ArrayList<>(
+			Collections.nCopies(materials, null)
+		);
+		List<List<Shop>> price = new ArrayList<>(
+			Collections.nCopies(materials, null)
+		);
+		Map<Enchantment, List<Shop>> enchantments = new HashMap<>();
+		Map<UUID, List<Shop>> owners = new HashMap<>();
+
+		for (Shop shop : shops) {
+			append(selling, shop.getSellingType().ordinal(), shop);
+			append(price, shop.getPriceType().ordinal(), shop);
+			for (Enchantment enchantment : enchantmentsOf(
+				shop.getSellingTemplate()
+			)) {
+				enchantments
+					.computeIfAbsent(enchantment, k -> new ArrayList<>())
+					.add(shop);
+			}
+			owners
+				.computeIfAbsent(shop.getOwnerUUID(), k -> new ArrayList<>())
+				.add(shop);
+		}
+
+		snapshot = new Snapshot(
+			toBuckets(selling),
+			toBuckets(price),
+			toBuckets(enchantments),
+			toBuckets(owners)
+		);
+	}
+
+	private void update(Shop shop, boolean add) {
+		Snapshot current = snapshot;
+
+		Shop[][] bySelling = current.bySelling.clone();
+		int sellingOrdinal = shop.getSellingType().ordinal();
+		bySelling[sellingOrdinal] = updated(
+			bySelling[sellingOrdinal],
+			shop,
+			add
+		);
+
+		Shop[][] byPrice = current.byPrice.clone();
+		int priceOrdinal = shop.getPriceType().ordinal();
+		byPrice[priceOrdinal] = updated(byPrice[priceOrdinal], shop, add);
+
+		Map<Enchantment, Shop[]> byEnchantment = new HashMap<>(
+			current.byEnchantment
+		);
+		for (Enchantment enchantment : enchantmentsOf(
+			shop.getSellingTemplate()
+		)) {
+			put(
+				byEnchantment,
+				enchantment,
+				updated(byEnchantment.get(enchantment), shop, add)
+			);
+		}
+
+		Map<UUID, Shop[]> byOwner = new HashMap<>(current.byOwner);
+		put(
+			byOwner,
+			shop.getOwnerUUID(),
+			updated(byOwner.get(shop.getOwnerUUID()), shop, add)
+		);
+
+		snapshot = new Snapshot(bySelling, byPrice, byEnchantment, byOwner);
+	}
+
+	@Nullable
+	private static Shop[] updated(
+		@Nullable Shop[] bucket,
+		Shop shop,
+		boolean add
+	) {
+		Shop[] shops = bucket != null ? bucket : NO_SHOPS;
+		int index = Arrays.asList(shops).indexOf(shop);
+		if (add) {
+			if (index >= 0) return bucket;
+			Shop[] grown = Arrays.copyOf(shops, shops.length + 1);
+			grown[shops.length] = shop;
+			return grown;
+		}
+
+		if (index < 0) return bucket;
+		if (shops.length == 1) return null;
+		Shop[] shrunk = new Shop[shops.length - 1];
+		System.arraycopy(shops, 0, shrunk, 0, index);
+		System.arraycopy(
+			shops,
+			index + 1,
+			shrunk,
+			index,
+			shops.length - index - 1
+		);
+		return shrunk;
+	}
+
+	private static <K> void put(
+		Map<K, Shop[]> map,
+		K key,
+		@Nullable Shop[] bucket
+	) {
+		if (bucket == null) {
+			map.remove(key);
+		} else {
+			map.put(key, bucket);
+		}
+	}
+
+	@Nullable
+	private static Shop[] smaller(@Nullable Shop[] current, Shop[] candidate) {
+		Shop[] bucket = candidate != null ? candidate : NO_SHOPS;
+		return current == null || bucket.length < current.length
+			? bucket
+			: current;
+	}
+
+	private static void append(List<List<Shop>> buckets, int index, Shop shop) {
+		if (buckets.get(index) == null) {
+			buckets.set(index, new ArrayList<>());
+		}
+		buckets.get(index).add(shop);
+	}
+
+	private static Shop[][] toBuckets(List<List<Shop>> lists) {
+		Shop[][] buckets = new Shop[lists.size()][];
+		for (int i = 0; i < buckets.length; i++) {
+			List<Shop> shops = lists.get(i);
+			if (shops != null) {
+				buckets[i] = shops.toArray(NO_SHOPS);
+			}
+		}
+		return buckets;
+	}
+
+	private static <K> Map<K, Shop[]> toBuckets(Map<K, List<Shop>> lists) {
+		Map<K, Shop[]> buckets = new HashMap<>();
+		for (Map.Entry<K, List<Shop>> entry : lists.entrySet()) {
+			buckets.put(entry.getKey(), entry.getValue().toArray(NO_SHOPS));
+		}
+		return buckets;
+	}
+
+	/**
+	 * Enchantments on the item, including those stored in enchanted books
+	 */
+	public static Set<Enchantment> enchantmentsOf(ItemStack item) {
+		Set<Enchantment> enchantments = new HashSet<>(
+			item.getEnchantments().keySet()
+		);
+		if (item.getItemMeta() instanceof EnchantmentStorageMeta meta) {
+			enchantments.addAll(meta.getStoredEnchants().keySet());
+		}
+		return enchantments;
+	}
+}
@@ -2,91 +2,107 @@ package com.bytefish.bytecore.managers;
 
 import com.bytefish.bytecore.ByteCore;
 import com.bytefish.bytecore.config.ConfigManager;
+import com.bytefish.bytecore.display.DisplayBackend;
+import com.bytefish.bytecore.display.DisplayProximityTracker;
+import com.bytefish.bytecore.display.DisplaySpawnQueue;
+import com.bytefish.bytecore.display.DisplayTags;
+import com.bytefish.bytecore.display.DisplayVisibilityEngine;
+import com.bytefish.bytecore.display.ItemDisplayEntityDisplay;
+import com.bytefish.bytecore.display.ItemEntityDisplay;
+import com.bytefish.bytecore.display.ShopDisplay;
+import com.bytefish.bytecore.ledger.TransactionLedger;
 import com.bytefish.bytecore.models.Shop;
 import com.bytefish.bytecore.models.ShopTransaction;
-import com.bytefish.bytecore.util.ShopUtils;
 import com.bytefish.bytecore.util.StringUtils;
 import com.bytefish.bytecore.util.gson.TypeAdapters;
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
-import java.io.*;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
-import java.util.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Objects;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
-import org.bukkit.*;
 import org.bukkit.Chunk;
-import org.bukkit.FluidCollisionMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Container;
+import org.bukkit.block.DoubleChest;
 import org.bukkit.block.Sign;
 import org.bukkit.block.data.type.WallSign;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
-import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.event.player.*;
-import org.bukkit.event.player.PlayerChangedWorldEvent;
-import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerMoveEvent;
-import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.event.player.PlayerRespawnEvent;
-import org.bukkit.event.player.PlayerTeleportEvent;
-import org.bukkit.event.world.ChunkLoadEvent;
-import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.EnchantmentStorageMeta;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.util.BoundingBox;
-import org.bukkit.util.RayTraceResult;
-import org.bukkit.util.Vector;
-import org.geysermc.floodgate.api.FloodgateApi;
 import org.jetbrains.annotations.Nullable;
 
 public class ShopManager {
 
-	private final Map<Location, Shop> shops = new ConcurrentHashMap<>();
-	private final Map<Location, ReentrantLock> shopLocks =
+	private final ShopRegistry shops = new ShopRegistry();
+	private final SignRegistry signs;
+	private final ShopIndex index = new ShopIndex();
+	private final ShopStockCache stock = new ShopStockCache();
+	private final Map<Location, ShopDisplay> displayItems =
 		new ConcurrentHashMap<>();
-	private final Map<Location, Item> displayItems = new ConcurrentHashMap<>();
 	private final ByteCore plugin;
+	private final TransactionLedger ledger;
+	private final ShopCommandQueue transactions;
 	private final ConfigManager config;
 	private final File shopsFile;
 	private final Gson gson;
-	private static final String SHOP_DISPLAY_METADATA = "shop_display";
-	private static final int VIEW_DISTANCE = 16; // Blocks, not chunks
+	// Below this many candidates an index bucket is ranked without the grid
+	private static final int DIRECT_RANK_LIMIT = 256;
 	private final Object displayLock = new Object();
 	private final Set<Location> processingLocations =
 		Collections.synchronizedSet(new HashSet<>());
 
-	private final Set<UUID> bedrockPlayers = ConcurrentHashMap.newKeySet();
+	private final DisplayVisibilityEngine visibilityEngine;
+	private final DisplayTags displayTags;
+	private final DisplaySpawnQueue spawnQueue;
+	private final DisplayProximityTracker proximityTracker;
+
+	// Nearest-shop query timings; queries also run on the API threads
+	private final AtomicLong nearestQueries = new AtomicLong();
+	private final AtomicLong nearestQueryNanos = new AtomicLong();
+	private volatile long lastNearestQueryNanos;
 
 	private record ChunkPosition(String world, int x, int z) {
+		static ChunkPosition of(Location loc) {
+			return new ChunkPosition(
+				loc.getWorld().getName(),
+				loc.getBlockX() >> 4,
+				loc.getBlockZ() >> 4
+			);
+		}
+
 		public boolean matches(Location loc) {
 			return (
 				loc.getWorld().getName().equals(world) &&
@@ -98,156 +114,293 @@ public class ShopManager {
 
 	private final Map<ChunkPosition, Set<Location>> chunkShopLocations =
 		new ConcurrentHashMap<>();
+	// Shops in loaded chunks whose display is despawned until a player is near
+	private final Map<ChunkPosition, Set<Location>> dormantShops =
+		new ConcurrentHashMap<>();
+	// Saved display entities of dormant shops, left in place for adoption
+	private final Map<Location, List<Entity>> parkedDisplays =
+		new ConcurrentHashMap<>();
 
 	public ShopManager(ByteCore plugin, ConfigManager config) {
 		this.plugin = plugin;
 		this.config = config;
+		this.signs = plugin.getSignRegistry();
+		this.ledger = plugin.getTransactionLedger();
+		this.transactions = new ShopCommandQueue(plugin);
 		this.shopsFile = new File(plugin.getDataFolder(), "shops.json");
 		this.gson = createGsonInstance();
+		this.displayTags = new DisplayTags(plugin);
+		this.spawnQueue = new DisplaySpawnQueue(config.getSpawnBudgetMicros());
+		this.proximityTracker = new DisplayProximityTracker(
+			plugin,
+			this,
+			config
+		);
+		this.visibilityEngine = new DisplayVisibilityEngine(
+			plugin,
+			this,
+			config
+		);
 		loadShops();
 
-		if (config.isDisplayItemsEnabled()) {
-			plugin
-				.getServer()
-				.getScheduler()
-				.runTaskLater(
-					plugin,
-					() -> {
-						cleanupDisplayItems();
-						plugin
-							.getServer()
-							.getScheduler()
-							.runTaskLater(
-								plugin,
-								this::recreateAllDisplayItems,
-								20L
-							);
-						startDisplayUpdateTask();
-					},
-					40L
-				);
-		}
+		// Chunks loaded before the plugin enabled never fire EntitiesLoadEvent
+		plugin
+			.getServer()
+			.getScheduler()
+			.runTask(plugin, () -> {
+				adoptLoadedDisplays(shops.values());
+				startDisplayUpdateTask();
+			});
 	}
 
 	public void startDisplayUpdateTask() {
-		// Update display visibility every tick
-		new BukkitRunnable() {
-			@Override
-			public void run() {
-				for (Player player : plugin.getServer().getOnlinePlayers()) {
-					updateDisplaysForPlayer(player);
-				}
-			}
+		plugin
+			.getServer()
+			.getScheduler()
+			.runTaskTimer(plugin, this::tickDisplays, 1L, 1L);
+	}
+
+	private void tickDisplays() {
+		if (!spawnQueue.isEmpty()) {
+			drainSpawnQueue();
+		}
+		// Only players that moved, turned or saw displays change are re-evaluated
+		if (config.isDisplayItemsEnabled()) {
+			proximityTracker.tick();
+			visibilityEngine.tick();
 		}
-			.runTaskTimer(plugin, 1L, 1L);
 	}
 
-	private boolean isPlayerLookingAtDisplay(
-		Player player,
-		Location displayLoc
+	public Map<String, Object> getDisplayMetrics() {
+		Map<String, Object> metrics = new HashMap<>(
+			visibilityEngine.getMetrics()
+		);
+		metrics.put("spawnQueue", spawnQueue.getMetrics());
+		metrics.put("proximity", proximityTracker.getMetrics());
+		return metrics;
+	}
+
+	public Map<String, Object> getShopMetrics() {
+		long queries = nearestQueries.get();
+		Map<String, Object> metrics = new HashMap<>();
+		metrics.put("shops", shops.size());
+		metrics.put("shopsInUnloadedWorlds", shops.unplacedSize());
+		metrics.put("nearestQueries", queries);
+		metrics.put(
+			"lastNearestQueryMicros",
+			TimeUnit.NANOSECONDS.toMicros(lastNearestQueryNanos)
+		);
+		metrics.put(
+			"averageNearestQueryMicros",
+			queries > 0
+				? TimeUnit.NANOSECONDS.toMicros(
+					nearestQueryNanos.get() / queries
+				)
+				: 0
+		);
+		metrics.put("stockCacheHits", stock.getHits());
+		metrics.put("stockRecounts", stock.getRecounts());
+		metrics.put("transactionQueue", transactions.getMetrics());
+		return metrics;
+	}
+
+	public DisplayVisibilityEngine getVisibilityEngine() {
+		return visibilityEngine;
+	}
+
+	/**
+	 * Returns the locations of spawned displays in a chunk
+	 */
+	public Set<Location> getDisplayLocationsInChunk(
+		World world,
+		int chunkX,
+		int chunkZ
 	) {
-		Location eyeLoc = player.getEyeLocation();
-		if (!eyeLoc.getWorld().equals(displayLoc.getWorld())) return false;
-
-		double distanceSquared = eyeLoc.distanceSquared(displayLoc);
-		if (distanceSquared > VIEW_DISTANCE * VIEW_DISTANCE) return false;
-
-		Vector toDisplay = displayLoc.clone().subtract(eyeLoc).toVector();
-		double angle = eyeLoc.getDirection().angle(toDisplay);
-		if (angle > Math.PI / 4) return false; // 45-degree view angle
-
-		// Wall check using ray trace
-		RayTraceResult rayTrace = player
-			.getWorld()
-			.rayTraceBlocks(
-				eyeLoc,
-				toDisplay.normalize(),
-				Math.sqrt(distanceSquared),
-				FluidCollisionMode.NEVER,
-				true
-			);
+		Set<Location> shopLocs = chunkShopLocations.get(
+			new ChunkPosition(world.getName(), chunkX, chunkZ)
+		);
+		return shopLocs != null ? shopLocs : Collections.emptySet();
+	}
 
-		return rayTrace == null || rayTrace.getHitBlock() == null;
+	@Nullable
+	public ShopDisplay getDisplay(Location location) {
+		return displayItems.get(location);
 	}
 
-	private void updateDisplaysForPlayer(Player player) {
-		Location playerLoc = player.getLocation();
-		final boolean isBedrock = isBedrockPlayer(player);
-		final int viewDistance = isBedrock
-			? Math.min(config.getDisplayViewDistance(), 32)
-			: config.getDisplayViewDistance(); // Reduced for Bedrock
+	public Set<Location> getDisplayLocations() {
+		return Collections.unmodifiableSet(displayItems.keySet());
+	}
 
-		displayItems.forEach((loc, item) -> {
-			if (item != null && item.isValid() && !item.isDead()) {
-				if (loc.getWorld().equals(playerLoc.getWorld())) {
-					double distanceSquared = loc.distanceSquared(playerLoc);
-					if (distanceSquared <= viewDistance * viewDistance) {
-						// Only show name for enchanted items
-						boolean isEnchanted = hasEnchantments(
-							item.getItemStack()
-						);
-						if (!isEnchanted) {
-							item.setCustomNameVisible(false);
-							return;
-						}
-
-						// Line of sight check with improved performance
-						boolean shouldShow = isPlayerLookingAtDisplayImproved(
-							player,
-							item.getLocation(),
-							isBedrock
-						);
+	/**
+	 * Returns the shops in a chunk that are waiting for a player to come near
+	 */
+	public Set<Location> getDormantShopsInChunk(
+		World world,
+		int chunkX,
+		int chunkZ
+	) {
+		Set<Location> shopLocs = dormantShops.get(
+			new ChunkPosition(world.getName(), chunkX, chunkZ)
+		);
+		return shopLocs != null ? shopLocs : Collections.emptySet();
+	}
 
-						// Update visibility state only if needed
-						if (item.isCustomNameVisible() != shouldShow) {
-							item.setCustomNameVisible(shouldShow);
-						}
-					} else {
-						item.setCustomNameVisible(false);
-					}
+	public int getDormantShopCount() {
+		int count = 0;
+		for (Set<Location> shopLocs : dormantShops.values()) {
+			count += shopLocs.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Spawns the display of a dormant shop, returning whether it now has one
+	 */
+	public boolean spawnDisplay(Location loc) {
+		Shop shop = shops.get(loc);
+		if (shop == null) {
+			removeDormant(loc);
+			return false;
+		}
+
+		List<Entity> parked = parkedDisplays.remove(loc);
+		if (parked != null) {
+			synchronized (displayLock) {
+				ShopDisplay display = adoptDisplay(shop, parked);
+				if (display != null) {
+					registerDisplay(loc, display);
+					return true;
 				}
+				parked.forEach(Entity::remove);
 			}
-		});
+		}
+		createDisplayItem(shop, null);
+		return displayItems.containsKey(loc);
 	}
 
-	private boolean isBedrockPlayer(Player player) {
-		try {
-			return FloodgateApi.getInstance()
-				.isFloodgatePlayer(player.getUniqueId());
-		} catch (Exception e) {
-			return false;
+	/**
+	 * Removes a display nobody is near, keeping its shop ready to respawn it
+	 */
+	public void despawnDisplay(Location loc) {
+		synchronized (displayLock) {
+			if (
+				!loc
+					.getWorld()
+					.isChunkLoaded(loc.getBlockX() >> 4, loc.getBlockZ() >> 4)
+			) {
+				untrackDisplay(loc);
+				return;
+			}
+			removeDisplayItem(loc);
+			if (shops.contains(loc)) {
+				markDormant(loc);
+			}
 		}
 	}
 
-	private boolean isPlayerLookingAtDisplayImproved(
-		Player player,
-		Location displayLoc,
-		boolean isBedrock
-	) {
-		Location eyeLoc = player.getEyeLocation();
-		if (!eyeLoc.getWorld().equals(displayLoc.getWorld())) return false;
-
-		double distanceSquared = eyeLoc.distanceSquared(displayLoc);
-
-		// Adjusted view angle for Bedrock players
-		double maxAngle = isBedrock ? Math.PI / 3 : Math.PI / 4; // 60 degrees for Bedrock, 45 for Java
-
-		Vector toDisplay = displayLoc.clone().subtract(eyeLoc).toVector();
-		double angle = eyeLoc.getDirection().angle(toDisplay);
-		if (angle > maxAngle) return false;
-
-		// Optimized ray trace with reduced precision for better performance
-		RayTraceResult rayTrace = player
-			.getWorld()
-			.rayTraceBlocks(
-				eyeLoc,
-				toDisplay.normalize(),
-				Math.sqrt(distanceSquared),
-				FluidCollisionMode.NEVER,
-				true
+	private void markDormant(Location loc) {
+		dormantShops
+			.computeIfAbsent(ChunkPosition.of(loc), k ->
+				ConcurrentHashMap.newKeySet()
+			)
+			.add(loc);
+	}
+
+	private void removeDormant(Location loc) {
+		// Anything still parked here is superseded by a new display or none
+		List<Entity> parked = parkedDisplays.remove(loc);
+		if (parked != null) {
+			parked.forEach(Entity::remove);
+		}
+		ChunkPosition pos = ChunkPosition.of(loc);
+		Set<Location> shopLocs = dormantShops.get(pos);
+		if (shopLocs != null) {
+			shopLocs.remove(loc);
+			if (shopLocs.isEmpty()) {
+				dormantShops.remove(pos);
+			}
+		}
+	}
+
+	/**
+	 * Forgets a display without touching its entities, which stay saved with the chunk
+	 */
+	private void untrackDisplay(Location loc) {
+		ChunkPosition pos = ChunkPosition.of(loc);
+		Set<Location> shopLocs = chunkShopLocations.get(pos);
+		if (shopLocs != null) {
+			shopLocs.remove(loc);
+			if (shopLocs.isEmpty()) {
+				chunkShopLocations.remove(pos);
+			}
+		}
+		displayItems.remove(loc);
+		visibilityEngine.invalidate(loc);
+	}
+
+	/**
+	 * Places the shops of a world that just loaded and syncs the displays
+	 * of any chunks that loaded before the world was announced
+	 */
+	public void handleWorldLoad(World world) {
+		shops.loadWorld(world.getName());
+		adoptLoadedDisplays(shops.getShopsInWorld(world.getName()));
+	}
+
+	/**
+	 * Releases everything held for a world that is unloading. Its shops stay
+	 * registered by world name, are still saved, and come back on load.
+	 */
+	public void handleWorldUnload(World world) {
+		String name = world.getName();
+		List<Shop> evicted = shops.unloadWorld(name);
+		for (Shop shop : evicted) {
+			stock.remove(shop.getId());
+		}
+
+		dormantShops.keySet().removeIf(pos -> pos.world().equals(name));
+		parkedDisplays.keySet().removeIf(loc -> isInWorld(loc, world));
+		synchronized (displayLock) {
+			chunkShopLocations.forEach((pos, shopLocs) -> {
+				if (pos.world().equals(name)) {
+					new ArrayList<>(shopLocs).forEach(this::untrackDisplay);
+				}
+			});
+			displayItems.keySet().removeIf(loc -> isInWorld(loc, world));
+		}
+		processingLocations.removeIf(loc -> isInWorld(loc, world));
+
+		plugin
+			.getLogger()
+			.info(
+				"Released " +
+				evicted.size() +
+				" shops of unloaded world " +
+				name
 			);
+	}
+
+	private static boolean isInWorld(Location loc, World world) {
+		return loc.isWorldLoaded() && world.equals(loc.getWorld());
+	}
 
-		return rayTrace == null || rayTrace.getHitBlock() == null;
+	public void handleChunkUnload(Chunk chunk) {
+		ChunkPosition pos = new ChunkPosition(
+			chunk.getWorld().getName(),
+			chunk.getX(),
+			chunk.getZ()
+		);
+		// Parked entities are saved with the chunk and adopted again on load
+		Set<Location> dormant = dormantShops.remove(pos);
+		if (dormant != null) {
+			dormant.forEach(parkedDisplays::remove);
+		}
+		synchronized (displayLock) {
+			Set<Location> shopLocs = chunkShopLocations.get(pos);
+			if (shopLocs != null) {
+				new ArrayList<>(shopLocs).forEach(this::untrackDisplay);
+			}
+		}
 	}
 
 	private void createDisplayItem(Shop shop, @Nullable Player owner) {
@@ -269,124 +422,97 @@ public class ShopManager {
 					return;
 				}
 
-				// Track shop location in chunk
-				ChunkPosition pos = new ChunkPosition(
-					loc.getWorld().getName(),
-					loc.getBlockX() >> 4,
-					loc.getBlockZ() >> 4
-				);
-				chunkShopLocations
-					.computeIfAbsent(pos, k -> ConcurrentHashMap.newKeySet())
-					.add(loc);
-
-				// Rest of the existing createDisplayItem code...
 				Location spawnLoc = getDisplayLocation(loc);
-				ItemStack displayItem = shop.getSellingItem().clone();
-				displayItem.setAmount(1);
-
-				Item item = loc.getWorld().dropItem(spawnLoc, displayItem);
-				item.setCustomNameVisible(false);
-				item.setGravity(false);
-				item.setInvulnerable(true);
-				item.setPickupDelay(Integer.MAX_VALUE);
-				item.setPersistent(true);
-				item.setVelocity(new Vector(0, 0, 0));
-
-				item.setMetadata(
-					SHOP_DISPLAY_METADATA,
-					new FixedMetadataValue(plugin, shop.getId().toString())
-				);
-
-				if (hasEnchantments(displayItem)) {
-					List<Component> enchantLore = ShopUtils.getEnchantmentLore(
-						displayItem
-					);
-					if (!enchantLore.isEmpty()) {
-						item.customName(
-							Component.join(Component.text(" "), enchantLore)
+				ItemStack displayItem = getDisplayItemStack(shop);
+
+				ShopDisplay display =
+					config.getDisplayBackend() == DisplayBackend.ITEM_DISPLAY
+						? ItemDisplayEntityDisplay.spawn(
+							plugin,
+							spawnLoc,
+							displayItem,
+							config.getDisplayViewDistance(),
+							displayTags,
+							shop.getId()
+						)
+						: ItemEntityDisplay.spawn(
+							plugin,
+							spawnLoc,
+							displayItem,
+							displayTags,
+							shop.getId()
 						);
-					}
-				}
 
-				displayItems.put(loc, item);
+				registerDisplay(loc, display);
 			}
 		} finally {
 			processingLocations.remove(loc);
 		}
 	}
 
-	private Location getDisplayLocation(Location shopLoc) {
-		return shopLoc.clone().add(0.5, config.getDisplayItemHeight(), 0.5);
+	private void registerDisplay(Location loc, ShopDisplay display) {
+		removeDormant(loc);
+		proximityTracker.prepare(display);
+
+		// Track shop location in chunk
+		chunkShopLocations
+			.computeIfAbsent(ChunkPosition.of(loc), k ->
+				ConcurrentHashMap.newKeySet()
+			)
+			.add(loc);
+
+		displayItems.put(loc, display);
+		visibilityEngine.invalidate(loc);
 	}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onChunkLoad(ChunkLoadEvent event) {
-		Chunk chunk = event.getChunk();
-		plugin
-			.getServer()
-			.getScheduler()
-			.runTaskLater(
+	private ItemStack getDisplayItemStack(Shop shop) {
+		ItemStack displayItem = shop.getSellingItem();
+		displayItem.setAmount(1);
+		return displayItem;
+	}
+
+	@Nullable
+	private ShopDisplay adoptDisplay(Shop shop, List<Entity> entities) {
+		ItemStack displayItem = getDisplayItemStack(shop);
+		return config.getDisplayBackend() == DisplayBackend.ITEM_DISPLAY
+			? ItemDisplayEntityDisplay.adopt(
 				plugin,
-				() -> {
-					if (!chunk.isLoaded()) return;
-
-					shops
-						.entrySet()
-						.stream()
-						.filter(entry -> isInChunk(entry.getKey(), chunk))
-						.forEach(entry ->
-							createDisplayItem(entry.getValue(), null)
-						);
-				},
-				2L
-			);
+				entities,
+				displayItem,
+				displayTags
+			)
+			: ItemEntityDisplay.adopt(plugin, entities, displayItem, displayTags);
 	}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onChunkUnload(ChunkUnloadEvent event) {
-		Chunk chunk = event.getChunk();
-		shops
-			.entrySet()
-			.stream()
-			.filter(entry -> isInChunk(entry.getKey(), chunk))
-			.forEach(entry -> removeDisplayItem(entry.getKey()));
-		ChunkPosition pos = new ChunkPosition(
-			chunk.getWorld().getName(),
+	public DisplayTags getDisplayTags() {
+		return displayTags;
+	}
+
+	private Location getDisplayLocation(Location shopLoc) {
+		return shopLoc.clone().add(0.5, config.getDisplayItemHeight(), 0.5);
+	}
+
+	public List<Shop> getShopsInChunk(Chunk chunk) {
+		return shops.getShopsInChunk(
+			chunk.getWorld(),
 			chunk.getX(),
 			chunk.getZ()
 		);
+	}
 
-		// Schedule a delayed check for Bedrock players
-		plugin
-			.getServer()
-			.getScheduler()
-			.runTaskLater(
-				plugin,
-				() -> {
-					if (!chunk.isLoaded()) {
-						Set<Location> shopLocs = chunkShopLocations.get(pos);
-						if (shopLocs != null) {
-							chunk
-								.getWorld()
-								.getPlayers()
-								.stream()
-								.filter(p ->
-									bedrockPlayers.contains(p.getUniqueId())
-								)
-								.forEach(this::scheduleDisplayRefreshForPlayer);
-						}
-					}
-				},
-				20L
-			); // 1 second delay
+	/**
+	 * Whether a shop may be at or next to a block. Checks every chunk within
+	 * one block, since a double chest's halves can sit in different chunks.
+	 */
+	public boolean hasShopsNear(World world, int blockX, int blockZ) {
+		return shops.hasShopsNear(world, blockX, blockZ);
 	}
 
-	private boolean isInChunk(Location location, Chunk chunk) {
-		return (
-			location.getWorld().equals(chunk.getWorld()) &&
-			(location.getBlockX() >> 4) == chunk.getX() &&
-			(location.getBlockZ() >> 4) == chunk.getZ()
-		);
+	/**
+	 * O(1) check whether a chunk contains any shop
+	 */
+	public boolean hasShopsInChunk(World world, int chunkX, int chunkZ) {
+		return shops.hasShopsInChunk(world, chunkX, chunkZ);
 	}
 
 	private void removeDisplayItem(Location loc) {
@@ -406,10 +532,11 @@ public class ShopManager {
 			}
 
 			// Existing removal code
-			Item item = displayItems.remove(loc);
-			if (item != null && !item.isDead()) {
-				item.remove();
+			ShopDisplay display = displayItems.remove(loc);
+			if (display != null) {
+				display.remove();
 			}
+			visibilityEngine.invalidate(loc);
 
 			if (loc.getWorld() != null) {
 				loc
@@ -417,83 +544,32 @@ public class ShopManager {
 					.getNearbyEntities(
 						getDisplayLocation(loc),
 						0.5,
-						0.5,
+						1.0,
 						0.5,
 						entity ->
-							entity instanceof Item &&
-							(entity.hasMetadata(SHOP_DISPLAY_METADATA) ||
-								(!((Item) entity).hasGravity() &&
-									((Item) entity).getPickupDelay() ==
-									Integer.MAX_VALUE))
+							displayTags.isDisplay(entity) ||
+							(entity instanceof Item item &&
+								!item.hasGravity() &&
+								item.getPickupDelay() == Integer.MAX_VALUE)
 					)
 					.forEach(Entity::remove);
 			}
 		}
 	}
 
-	public void recreateAllDisplayItems() {
-		synchronized (displayLock) {
-			cleanupDisplayItems();
-
-			shops.forEach((location, shop) -> {
-				if (
-					location.getWorld() != null &&
-					location
-						.getWorld()
-						.isChunkLoaded(
-							location.getBlockX() >> 4,
-							location.getBlockZ() >> 4
-						)
-				) {
-					createDisplayItem(shop, null);
-				}
-			});
-		}
-	}
-
+	/**
+	 * Removes every tracked display entity
+	 */
 	public void cleanupDisplayItems() {
 		synchronized (displayLock) {
-			new HashSet<>(displayItems.values()).forEach(item -> {
-				if (item != null && !item.isDead()) {
-					item.remove();
-				}
-			});
+			new HashSet<>(displayItems.values()).forEach(ShopDisplay::remove);
 			displayItems.clear();
+			chunkShopLocations.clear();
 			processingLocations.clear();
-
-			// Clean up any stray display items
-			plugin
-				.getServer()
-				.getWorlds()
-				.forEach(world ->
-					world
-						.getEntities()
-						.stream()
-						.filter(entity -> entity instanceof Item)
-						.map(entity -> (Item) entity)
-						.filter(
-							item ->
-								!item.hasGravity() ||
-								item.hasMetadata(SHOP_DISPLAY_METADATA)
-						)
-						.forEach(Entity::remove)
-				);
+			visibilityEngine.invalidateAll();
 		}
 	}
 
-	private boolean hasEnchantments(ItemStack item) {
-		if (item == null) return false;
-
-		if (item.getType() == Material.ENCHANTED_BOOK) {
-			if (
-				!(item.getItemMeta() instanceof EnchantmentStorageMeta meta)
-			) return false;
-			return !meta.getStoredEnchants().isEmpty();
-		}
-
-		return !item.getEnchantments().isEmpty();
-	}
-
 	// Shop Management Methods
 	public Shop addShop(
 		Location location,
@@ -531,8 +607,9 @@ public class ShopManager {
 			return null;
 		}
 
-		shops.put(location, shop);
-		shopLocks.put(location, new ReentrantLock());
+		shops.put(shop);
+		signs.addShop(location);
+		index.add(shop);
 		createDisplayItem(shop, owner);
 		saveAll();
 		return shop;
@@ -540,8 +617,13 @@ public class ShopManager {
 
 	public void removeShop(Location location) {
 		removeDisplayItem(location);
-		shops.remove(location);
-		shopLocks.remove(location);
+		removeDormant(location);
+		Shop removed = shops.remove(location);
+		if (removed != null) {
+			index.remove(removed);
+			stock.remove(removed.getId());
+		}
+		signs.removeShop(location);
 		saveAll();
 	}
 
@@ -553,287 +635,241 @@ public class ShopManager {
 		return shops.get(location);
 	}
 
-	public boolean isShop(Location location) {
-		return shops.containsKey(location);
+	@Nullable
+	public Shop getShop(Block block) {
+		return shops.get(
+			block.getWorld(),
+			block.getX(),
+			block.getY(),
+			block.getZ()
+		);
 	}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onPlayerMove(PlayerMoveEvent event) {
-		// Only check if they've moved to a new chunk
-		Chunk fromChunk = event.getFrom().getChunk();
-		Chunk toChunk = event.getTo().getChunk();
-
-		if (
-			fromChunk.getX() != toChunk.getX() ||
-			fromChunk.getZ() != toChunk.getZ()
-		) {
-			Player player = event.getPlayer();
-			Location loc = event.getTo();
-			int chunkX = loc.getBlockX() >> 4;
-			int chunkZ = loc.getBlockZ() >> 4;
-
-			for (int dx = -1; dx <= 1; dx++) {
-				for (int dz = -1; dz <= 1; dz++) {
-					Chunk chunk = loc
-						.getWorld()
-						.getChunkAt(chunkX + dx, chunkZ + dz);
-					if (chunk.isLoaded()) {
-						// If the chunk is loaded, make sure the displays are created
-						handleChunkDisplays(chunk);
-					}
-				}
-			}
-		}
-
-		updateDisplaysForPlayer(event.getPlayer());
+	public boolean isShop(Location location) {
+		return shops.contains(location);
 	}
 
-	private void handleChunkDisplays(Chunk chunk) {
-		shops
-			.entrySet()
-			.stream()
-			.filter(entry -> isInChunk(entry.getKey(), chunk))
-			.forEach(entry -> {
-				if (displayItems.get(entry.getKey()) == null) {
-					createDisplayItem(entry.getValue(), null);
-				}
-			});
+	public boolean isShop(Block block) {
+		return shops.contains(
+			block.getWorld(),
+			block.getX(),
+			block.getY(),
+			block.getZ()
+		);
 	}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onPlayerTeleport(PlayerTeleportEvent event) {
-		plugin
-			.getServer()
-			.getScheduler()
-			.runTaskLater(
-				plugin,
-				() -> updateDisplaysForPlayer(event.getPlayer()),
-				1L
-			);
+	/**
+	 * Shops matching every given criterion, answered from the inverted index
+	 */
+	public List<Shop> findShops(
+		@Nullable Material selling,
+		@Nullable Enchantment enchantment,
+		@Nullable Material price
+	) {
+		return index.find(selling, enchantment, price);
 	}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onPlayerJoin(PlayerJoinEvent event) {
-		Player player = event.getPlayer();
-		if (isBedrockPlayer(player)) {
-			bedrockPlayers.add(player.getUniqueId());
-			scheduleDisplayRefreshForPlayer(player);
-		}
-
-		plugin
-			.getServer()
-			.getScheduler()
-			.runTaskLater(
-				plugin,
-				() -> updateDisplaysForPlayer(event.getPlayer()),
-				5L
+	/**
+	 * Up to {@code limit} shops nearest to the origin within
+	 * {@code maxDistance}, optionally only those selling a material. When
+	 * few shops sell it, the index bucket is ranked directly instead of
+	 * walking the grid.
+	 */
+	public List<ShopRegistry.Nearby> findNearestShops(
+		Location origin,
+		int limit,
+		double maxDistance,
+		@Nullable Material selling
+	) {
+		World world = origin.getWorld();
+		if (world == null) return List.of();
+
+		long start = System.nanoTime();
+		List<ShopRegistry.Nearby> results;
+		List<Shop> candidates = selling != null
+			? index.find(selling, null, null)
+			: null;
+		if (candidates != null && candidates.size() <= DIRECT_RANK_LIMIT) {
+			results = rankByDistance(candidates, origin, limit, maxDistance);
+		} else {
+			results = shops.nearest(
+				world,
+				origin.getX(),
+				origin.getY(),
+				origin.getZ(),
+				limit,
+				maxDistance,
+				selling != null
+					? shop -> shop.getSellingType() == selling
+					: null
 			);
-	}
+		}
 
-	@EventHandler(priority = EventPriority.MONITOR)
-	public void onPlayerQuit(PlayerQuitEvent event) {
-		bedrockPlayers.remove(event.getPlayer().getUniqueId());
+		long elapsed = System.nanoTime() - start;
+		lastNearestQueryNanos = elapsed;
+		nearestQueryNanos.addAndGet(elapsed);
+		nearestQueries.incrementAndGet();
+		return results;
 	}
 
-	@EventHandler(priority = EventPriority.HIGH)
-	public void onBlockBreak(BlockBreakEvent event) {
-		Block block = event.getBlock();
-		Location loc = block.getLocation();
-
-		if (shops.containsKey(loc)) {
-			Shop shop = shops.get(loc);
-			if (!event.getPlayer().getUniqueId().equals(shop.getOwnerUUID())) {
-				event.setCancelled(true);
-				return;
+	private List<ShopRegistry.Nearby> rankByDistance(
+		List<Shop> candidates,
+		Location origin,
+		int limit,
+		double maxDistance
+	) {
+		double maxDistanceSquared = maxDistance * maxDistance;
+		String world = origin.getWorld().getName();
+		List<ShopRegistry.Nearby> ranked = new ArrayList<>();
+		for (Shop shop : candidates) {
+			if (!world.equals(shop.getWorldName())) continue;
+
+			double dx = shop.getBlockX() + 0.5 - origin.getX();
+			double dy = shop.getBlockY() + 0.5 - origin.getY();
+			double dz = shop.getBlockZ() + 0.5 - origin.getZ();
+			double distanceSquared = dx * dx + dy * dy + dz * dz;
+			if (distanceSquared <= maxDistanceSquared) {
+				ranked.add(new ShopRegistry.Nearby(shop, distanceSquared));
 			}
-
-			removeShop(loc);
-			event
-				.getPlayer()
-				.sendMessage(
-					Component.text("Shop removed successfully!").color(
-						NamedTextColor.GREEN
-					)
-				);
 		}
+		ranked.sort(
+			Comparator.comparingDouble(ShopRegistry.Nearby::distanceSquared)
+		);
+		return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
 	}
 
-	private void scheduleDisplayRefreshForPlayer(Player player) {
-		if (!bedrockPlayers.contains(player.getUniqueId())) return;
-
-		// Initial refresh
-		refreshDisplaysForPlayer(player);
+	public List<Shop> getShopsByOwner(UUID owner) {
+		return index.getByOwner(owner);
+	}
 
-		// Schedule periodic refreshes while the player is online
-		new BukkitRunnable() {
-			private int count = 0;
+	public List<Shop> getAllShops() {
+		return shops.values();
+	}
 
-			@Override
-			public void run() {
-				if (
-					!player.isOnline() ||
-					!bedrockPlayers.contains(player.getUniqueId())
-				) {
-					cancel();
-					return;
-				}
+	/**
+	 * Whether the block is a wall sign attached to a shop container. Only wall
+	 * signs at positions in the sign registry have their block data read.
+	 */
+	public boolean isShopSign(Block block) {
+		return getShopForSign(block) != null;
+	}
 
-				// Full refresh every 30 seconds
-				if (count++ % 30 == 0) {
-					refreshDisplaysForPlayer(player);
-				} else {
-					// Quick visibility update
-					updateDisplayVisibilityForPlayer(player);
-				}
-			}
+	@Nullable
+	public Shop getShopForSign(Block block) {
+		if (!config.getBlockClassifier().isWallSign(block.getType())) {
+			return null;
 		}
-			.runTaskTimer(plugin, 20L, 20L); // Run every second
-	}
 
-	private void updateDisplayVisibilityForPlayer(Player player) {
-		Location playerLoc = player.getLocation();
-		int viewDistance = Math.min(config.getDisplayViewDistance(), 32);
+		SignRegistry.Entry entry = signs.get(block);
+		if (
+			entry == null ||
+			!entry.hasShops() ||
+			!(block.getBlockData() instanceof WallSign wallSign)
+		) {
+			return null;
+		}
 
-		displayItems.forEach((loc, item) -> {
-			if (item != null && item.isValid() && !item.isDead()) {
-				if (loc.getWorld().equals(playerLoc.getWorld())) {
-					double distanceSquared = loc.distanceSquared(playerLoc);
-					if (distanceSquared <= viewDistance * viewDistance) {
-						boolean isEnchanted = hasEnchantments(
-							item.getItemStack()
-						);
-						boolean shouldShow =
-							isEnchanted &&
-							isPlayerLookingAtDisplayImproved(
-								player,
-								item.getLocation(),
-								true
-							);
-
-						if (item.isCustomNameVisible() != shouldShow) {
-							item.setCustomNameVisible(shouldShow);
-							// Force position update
-							item.teleport(item.getLocation());
-						}
-					} else {
-						item.setCustomNameVisible(false);
-					}
-				}
-			}
-		});
+		BlockFace attachedFace = wallSign.getFacing().getOppositeFace();
+		if (!entry.hasShopOn(attachedFace)) return null;
+		return getShop(block.getRelative(attachedFace));
 	}
 
-	private void refreshDisplaysForPlayer(Player player) {
-		Location playerLoc = player.getLocation();
-		int viewDistance = Math.min(config.getDisplayViewDistance(), 32);
-		int chunkRadius = (viewDistance >> 4) + 1;
-
-		int playerChunkX = playerLoc.getBlockX() >> 4;
-		int playerChunkZ = playerLoc.getBlockZ() >> 4;
-
-		for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
-			for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
-				ChunkPosition pos = new ChunkPosition(
-					playerLoc.getWorld().getName(),
-					playerChunkX + dx,
-					playerChunkZ + dz
-				);
+	/**
+	 * Allocation-free lookup for hot event handlers
+	 */
+	public boolean isShop(World world, int x, int y, int z) {
+		return shops.contains(world, x, y, z);
+	}
 
-				Set<Location> shopLocs = chunkShopLocations.get(pos);
-				if (shopLocs != null) {
-					shopLocs.forEach(loc -> {
-						if (
-							loc.distanceSquared(playerLoc) <=
-							viewDistance * viewDistance
-						) {
-							recreateDisplayItem(loc);
-						}
-					});
-				}
-			}
-		}
+	// Shop Transaction Methods
+	public void processTransaction(Shop shop, Player buyer) {
+		processTransaction(shop, buyer, 1);
 	}
 
-	private void recreateDisplayItem(Location loc) {
-		Shop shop = shops.get(loc);
-		if (shop != null) {
-			removeDisplayItem(loc);
-			createDisplayItem(shop, null);
-		}
+	/**
+	 * Buys as many lots as possible, up to maxLots, as one planned
+	 * transaction. Purchases at one shop run in the order they were made, on
+	 * the main thread, so none of them ever waits on a lock.
+	 */
+	public void processTransaction(Shop shop, Player buyer, int maxLots) {
+		transactions.submit(shop.getId(), () -> {
+			ShopTransaction transaction = purchase(shop, buyer, maxLots);
+			if (transaction != null) {
+				ledger.record(transaction);
+			}
+		});
 	}
 
-	// Shop Transaction Methods
-	public ShopTransaction processTransaction(Shop shop, Player buyer) {
+	private ShopTransaction purchase(Shop shop, Player buyer, int maxLots) {
+		World world = shop.getWorld();
 		if (
 			!buyer.isOnline() ||
-			!shop
-				.getLocation()
-				.getWorld()
-				.isChunkLoaded(
-					shop.getLocation().getBlockX() >> 4,
-					shop.getLocation().getBlockZ() >> 4
-				)
+			world == null ||
+			!world.isChunkLoaded(shop.getBlockX() >> 4, shop.getBlockZ() >> 4)
 		) {
 			return null;
 		}
 
-		if (!verifyShopSign(shop.getLocation())) {
+		Location location = shop.getLocation();
+		// Removed or replaced while this purchase was queued
+		if (getShop(location) != shop) {
+			return null;
+		}
+		if (!verifyShopSign(location)) {
 			buyer.sendMessage(
-				Component.text("This shop's sign is missing!").color(
-					NamedTextColor.RED
-				)
+				Component.text(
+					"This shop's sign is broken! Please notify the owner."
+				).color(NamedTextColor.RED)
 			);
 			return null;
 		}
 
-		ReentrantLock lock = shopLocks.computeIfAbsent(shop.getLocation(), k ->
-			new ReentrantLock()
+		Block block = world.getBlockAt(
+			shop.getBlockX(),
+			shop.getBlockY(),
+			shop.getBlockZ()
 		);
+		if (!(block.getState() instanceof Container container)) {
+			buyer.sendMessage(
+				Component.text("This shop's container is missing!").color(
+					NamedTextColor.RED
+				)
+			);
+			return null;
+		}
 
-		try {
-			if (!lock.tryLock(500, TimeUnit.MILLISECONDS)) {
-				return null;
-			}
+		ShopTransaction transaction = new ShopTransaction(shop, buyer, maxLots);
 
-			Block block = shop.getLocation().getBlock();
-			if (!(block.getState() instanceof Container container)) {
-				buyer.sendMessage(
-					Component.text("This shop's container is missing!").color(
-						NamedTextColor.RED
-					)
-				);
-				return null;
-			}
+		if (!verifyInventories(buyer, container, transaction)) {
+			return transaction;
+		}
 
-			ShopTransaction transaction = new ShopTransaction(
+		Inventory shopInv = container.getInventory();
+		TransactionPlan plan = maxLots > 1
+			? TransactionPlan.planMax(
 				shop,
-				buyer,
-				shop.getSellingItem(),
-				shop.getPriceItem()
-			);
-
-			if (
-				!verifyInventories(buyer, container, transaction) ||
-				!executeTransaction(shop, buyer, container, transaction)
-			) {
-				return transaction;
-			}
+				shopInv,
+				buyer.getInventory(),
+				maxLots
+			)
+			: TransactionPlan.plan(shop, shopInv, buyer.getInventory(), 1);
+		if (!plan.isPossible()) {
+			failTransaction(buyer, transaction, plan.getFailure());
+			stock.update(shop, shopInv.getStorageContents());
+			return transaction;
+		}
+		plan.apply(shopInv, buyer.getInventory());
 
-			transaction.complete();
-			buyer.sendMessage(
-				Component.text("Purchase successful!").color(
+		transaction.complete(plan.getLots());
+		stock.update(shop, plan.getShopContents());
+		buyer.sendMessage(
+			plan.getLots() == 1
+				? Component.text("Purchase successful!").color(
 					NamedTextColor.GREEN
 				)
-			);
-			return transaction;
-		} catch (InterruptedException e) {
-			plugin
-				.getLogger()
-				.warning("Shop transaction interrupted: " + e.getMessage());
-			return null;
-		} finally {
-			lock.unlock();
-		}
+				: bulkPurchaseSummary(shop, plan.getLots())
+		);
+		return transaction;
 	}
 
 	public boolean verifyShopSign(Location shopLocation) {
@@ -874,6 +910,10 @@ public class ShopManager {
 		return false;
 	}
 
+	/**
+	 * Cheap checks before planning: inventories still there, and the cached
+	 * stock counters, which are exact whenever they say no
+	 */
 	private boolean verifyInventories(
 		Player buyer,
 		Container container,
@@ -889,211 +929,259 @@ public class ShopManager {
 		}
 
 		Shop shop = transaction.getShop();
+		ShopStockCache.Level level = stock.get(shop, container.getInventory());
 
-		if (
-			!hasStock(
-				container.getInventory(),
-				shop.getSellingItem(),
-				shop.getSellingAmount()
-			)
-		) {
-			transaction.fail("Shop is out of stock");
-			buyer.sendMessage(
-				Component.text("This shop is out of stock!").color(
-					NamedTextColor.RED
-				)
+		if (!level.canSell(shop)) {
+			failTransaction(
+				buyer,
+				transaction,
+				TransactionPlan.Failure.OUT_OF_STOCK
 			);
 			return false;
 		}
 
-		if (
-			!hasSpace(
-				container.getInventory(),
-				shop.getPriceItem(),
-				shop.getPriceAmount()
-			)
-		) {
-			transaction.fail("Shop is full and cannot accept payment");
-			buyer.sendMessage(
-				Component.text(
-					"This shop is full and cannot accept payment!"
-				).color(NamedTextColor.RED)
+		if (!level.canAcceptPayment(shop)) {
+			failTransaction(
+				buyer,
+				transaction,
+				TransactionPlan.Failure.SHOP_FULL
 			);
 			return false;
 		}
 
-		if (
-			!hasItems(
-				buyer.getInventory(),
-				shop.getPriceItem(),
-				shop.getPriceAmount()
-			)
-		) {
-			transaction.fail("Insufficient payment items");
-			buyer.sendMessage(
-				Component.text("You don't have enough payment items!").color(
-					NamedTextColor.RED
-				)
-			);
-			return false;
-		}
+		return true;
+	}
 
-		if (
-			!hasSpace(
-				buyer.getInventory(),
-				shop.getSellingItem(),
-				shop.getSellingAmount()
-			)
-		) {
-			transaction.fail("Insufficient inventory space");
-			buyer.sendMessage(
-				Component.text("You don't have enough inventory space!").color(
-					NamedTextColor.RED
+	private Component bulkPurchaseSummary(Shop shop, int lots) {
+		return Component.text()
+			.append(
+				Component.text("Bought " + lots + " lots: ").color(
+					NamedTextColor.GREEN
 				)
-			);
-			return false;
-		}
-
-		return true;
+			)
+			.append(
+				Component.text(
+					shop.getSellingAmount() * lots +
+					"× " +
+					StringUtils.formatItemName(shop.getSellingType(), 1)
+				).color(NamedTextColor.AQUA)
+			)
+			.append(Component.text(" for ").color(NamedTextColor.GREEN))
+			.append(
+				Component.text(
+					shop.getPriceAmount() * lots +
+					"× " +
+					StringUtils.formatItemName(shop.getPriceType(), 1)
+				).color(NamedTextColor.AQUA)
+			)
+			.build();
 	}
 
-	private boolean executeTransaction(
-		Shop shop,
+	private void failTransaction(
 		Player buyer,
-		Container container,
-		ShopTransaction transaction
+		ShopTransaction transaction,
+		TransactionPlan.Failure failure
 	) {
-		Inventory shopInv = container.getInventory();
-		Inventory buyerInv = buyer.getInventory();
+		transaction.fail(failure.getReason());
+		Shop shop = transaction.getShop();
+		buyer.sendMessage(
+			switch (failure) {
+				case OUT_OF_STOCK -> Component.text(
+					"This shop is out of stock!"
+				).color(NamedTextColor.RED);
+				case SHOP_FULL -> Component.text(
+					"This shop is full and cannot accept payment!"
+				).color(NamedTextColor.RED);
+				case INSUFFICIENT_PAYMENT -> Component.text()
+					.append(
+						Component.text("You need ").color(NamedTextColor.RED)
+					)
+					.append(
+						Component.text(shop.getPriceAmount() + "x ").color(
+							NamedTextColor.YELLOW
+						)
+					)
+					.append(
+						Component.text(
+							shop
+								.getPriceType()
+								.toString()
+								.toLowerCase()
+								.replace('_', ' ')
+						).color(NamedTextColor.RED)
+					)
+					.append(
+						Component.text(" to make this purchase!").color(
+							NamedTextColor.RED
+						)
+					)
+					.build();
+				case BUYER_FULL -> Component.text(
+					"You don't have enough inventory space!"
+				).color(NamedTextColor.RED);
+			}
+		);
+	}
 
-		// Remove items from shop
-		if (
-			!removeItems(
-				shopInv,
-				shop.getSellingItem(),
-				shop.getSellingAmount()
-			)
-		) {
-			transaction.fail("Failed to remove items from shop");
-			return false;
+	/**
+	 * Stock and payment space of the shop's container, served from the
+	 * cached counters unless they need a recount. Main thread only.
+	 */
+	public ShopStockCache.Level getStockLevel(Shop shop, Inventory inventory) {
+		return stock.get(shop, inventory);
+	}
+
+	/**
+	 * Last counted stock of the shop, null if it was never counted
+	 */
+	@Nullable
+	public ShopStockCache.Level peekStockLevel(Shop shop) {
+		return stock.peek(shop.getId());
+	}
+
+	/**
+	 * Marks the counters of any shop behind this inventory as stale
+	 */
+	public void invalidateStock(Inventory inventory) {
+		for (Shop shop : getShopsForInventory(inventory)) {
+			stock.invalidate(shop.getId());
+		}
+	}
+
+	/**
+	 * Recounts any shop behind this inventory, e.g. once its owner closes it
+	 */
+	public void recountStock(Inventory inventory) {
+		for (Shop shop : getShopsForInventory(inventory)) {
+			stock.recount(shop, inventory);
 		}
+	}
 
-		// Remove payment from buyer
+	private List<Shop> getShopsForInventory(Inventory inventory) {
+		Location loc = inventory.getLocation();
 		if (
-			!removeItems(buyerInv, shop.getPriceItem(), shop.getPriceAmount())
+			loc == null ||
+			loc.getWorld() == null ||
+			!hasShopsNear(loc.getWorld(), loc.getBlockX(), loc.getBlockZ())
 		) {
-			// Revert shop inventory change
-			ItemStack revertItem = shop.getSellingItem().clone();
-			revertItem.setAmount(shop.getSellingAmount());
-			shopInv.addItem(revertItem);
-			transaction.fail("Failed to remove payment items");
-			return false;
+			return List.of();
 		}
 
-		// Complete the transaction
-		ItemStack sellingItems = shop.getSellingItem().clone();
-		sellingItems.setAmount(shop.getSellingAmount());
-		buyerInv.addItem(sellingItems);
-
-		ItemStack paymentItems = shop.getPriceItem().clone();
-		paymentItems.setAmount(shop.getPriceAmount());
-		shopInv.addItem(paymentItems);
-
-		return true;
+		InventoryHolder holder = inventory.getHolder(false);
+		List<Shop> found = new ArrayList<>(2);
+		if (holder instanceof DoubleChest doubleChest) {
+			addShopForHolder(found, doubleChest.getLeftSide(false));
+			addShopForHolder(found, doubleChest.getRightSide(false));
+		} else {
+			addShopForHolder(found, holder);
+		}
+		return found;
 	}
 
-	// Inventory Utility Methods
-	public boolean hasItems(Inventory inventory, ItemStack item, int amount) {
-		int count = 0;
-		for (ItemStack stack : inventory.getStorageContents()) {
-			if (stack != null && stack.isSimilar(item)) {
-				count += stack.getAmount();
-				if (count >= amount) return true;
+	private void addShopForHolder(List<Shop> found, InventoryHolder holder) {
+		if (holder instanceof Container container) {
+			Shop shop = getShop(container.getBlock());
+			if (shop != null) {
+				found.add(shop);
 			}
 		}
-		return false;
 	}
 
-	public boolean hasStock(Inventory inventory, ItemStack item, int amount) {
-		int count = 0;
-		for (ItemStack stack : inventory.getStorageContents()) {
-			if (stack != null && ShopUtils.areItemsEqual(stack, item)) {
-				count += stack.getAmount();
-				if (count >= amount) return true;
-			}
-		}
-		return false;
+	/**
+	 * Matches the display entities saved in a chunk back to their shops.
+	 * Complete displays are adopted, incomplete or orphaned ones removed,
+	 * and only shops without a display get a new one.
+	 */
+	public void handleEntitiesLoad(Chunk chunk, List<Entity> entities) {
+		// Drained from the next tick on, never while entities are still being added
+		spawnQueue.enqueue(chunk, entities);
 	}
 
-	public boolean hasSpace(Inventory inventory, ItemStack item, int amount) {
-		return (
-			inventory.firstEmpty() != -1 ||
-			canStackWith(inventory, item, amount)
+	private void drainSpawnQueue() {
+		spawnQueue.drain(work ->
+			syncChunkDisplays(
+				shops.getShopsInChunk(work.world(), work.x(), work.z()),
+				work.entities()
+			)
 		);
 	}
 
-	private boolean canStackWith(
-		Inventory inventory,
-		ItemStack item,
-		int amount
+	private void syncChunkDisplays(
+		List<Shop> chunkShops,
+		List<Entity> entities
 	) {
-		for (ItemStack stack : inventory.getStorageContents()) {
-			if (
-				stack != null &&
-				stack.isSimilar(item) &&
-				stack.getAmount() + amount <= stack.getMaxStackSize()
-			) {
-				return true;
+		Map<UUID, List<Entity>> tagged = new HashMap<>();
+		for (Entity entity : entities) {
+			UUID shopId = displayTags.getShopId(entity);
+			if (shopId != null && entity.isValid()) {
+				tagged
+					.computeIfAbsent(shopId, k -> new ArrayList<>())
+					.add(entity);
 			}
 		}
-		return false;
-	}
 
-	public void handleChunkLoad(Chunk chunk) {
-		if (!config.isDisplayItemsEnabled()) return;
+		synchronized (displayLock) {
+			if (config.isDisplayItemsEnabled()) {
+				for (Shop shop : chunkShops) {
+					syncDisplay(shop, tagged.remove(shop.getId()));
+				}
+			}
 
-		plugin
-			.getServer()
-			.getScheduler()
-			.runTaskLater(
-				plugin,
-				() -> {
-					if (!chunk.isLoaded()) return;
-
-					shops
-						.entrySet()
-						.stream()
-						.filter(entry -> isInChunk(entry.getKey(), chunk))
-						.forEach(entry ->
-							createDisplayItem(entry.getValue(), null)
-						);
-				},
-				2L
-			);
+			// Displays of removed shops, or all of them if displays are disabled
+			tagged.values().forEach(list -> list.forEach(Entity::remove));
+		}
 	}
 
-	private boolean removeItems(
-		Inventory inventory,
-		ItemStack item,
-		int amount
-	) {
-		int remaining = amount;
-		ItemStack[] contents = inventory.getStorageContents();
-
-		for (int i = 0; i < contents.length && remaining > 0; i++) {
-			ItemStack stack = contents[i];
-			if (stack != null && stack.isSimilar(item)) {
-				if (stack.getAmount() <= remaining) {
-					remaining -= stack.getAmount();
-					inventory.setItem(i, null);
-				} else {
-					stack.setAmount(stack.getAmount() - remaining);
-					remaining = 0;
-				}
+	private void syncDisplay(Shop shop, @Nullable List<Entity> saved) {
+		Location loc = shop.getLocation();
+		ShopDisplay display = displayItems.get(loc);
+
+		if (!proximityTracker.isDemanded(loc)) {
+			// Adopted later by the proximity tracker once a player comes near
+			if (display != null && display.isValid()) {
+				removeDisplayItem(loc);
+			} else {
+				untrackDisplay(loc);
 			}
+			markDormant(loc);
+			if (saved != null) parkedDisplays.put(loc, saved);
+			return;
 		}
 
-		return remaining == 0;
+		if (display == null || !display.isValid()) {
+			display = saved != null ? adoptDisplay(shop, saved) : null;
+			if (display != null) {
+				registerDisplay(loc, display);
+			} else {
+				if (saved != null) saved.forEach(Entity::remove);
+				createDisplayItem(shop, null);
+				return;
+			}
+		}
+
+		if (saved != null) {
+			// Duplicates left behind by a crash or an older version
+			for (Entity entity : saved) {
+				if (!display.owns(entity)) entity.remove();
+			}
+		}
+	}
+
+	private void adoptLoadedDisplays(Collection<Shop> candidates) {
+		Set<Chunk> chunks = new HashSet<>();
+		for (Shop shop : candidates) {
+			World world = shop.getWorld();
+			int chunkX = shop.getBlockX() >> 4;
+			int chunkZ = shop.getBlockZ() >> 4;
+			if (world != null && world.isChunkLoaded(chunkX, chunkZ)) {
+				chunks.add(world.getChunkAt(chunkX, chunkZ));
+			}
+		}
+		for (Chunk chunk : chunks) {
+			if (chunk.isEntitiesLoaded()) {
+				spawnQueue.enqueue(chunk, Arrays.asList(chunk.getEntities()));
+			}
+		}
 	}
 
 	// Data Persistence Methods
@@ -1163,13 +1251,9 @@ public class ShopManager {
 			List<Shop> loadedShops = gson.fromJson(reader, type);
 
 			if (loadedShops != null) {
-				shops.clear();
-				shopLocks.clear();
-
-				for (Shop shop : loadedShops) {
-					shops.put(shop.getLocation(), shop);
-					shopLocks.put(shop.getLocation(), new ReentrantLock());
-				}
+				shops.replaceAll(loadedShops);
+				signs.replaceShops(loadedShops);
+				index.replaceAll(loadedShops);
 			}
 		} catch (IOException e) {
 			plugin
@@ -1185,15 +1269,9 @@ public class ShopManager {
 					Type type = new TypeToken<List<Shop>>() {}.getType();
 					List<Shop> loadedShops = gson.fromJson(reader, type);
 					if (loadedShops != null) {
-						shops.clear();
-						shopLocks.clear();
-						loadedShops.forEach(shop -> {
-							shops.put(shop.getLocation(), shop);
-							shopLocks.put(
-								shop.getLocation(),
-								new ReentrantLock()
-							);
-						});
+						shops.replaceAll(loadedShops);
+						signs.replaceShops(loadedShops);
+						index.replaceAll(loadedShops);
 						saveAll(); // Save successful backup load as main file
 					}
 				} catch (IOException backupError) {
@@ -1223,8 +1301,11 @@ public class ShopManager {
 	}
 
 	public void cleanup() {
+		visibilityEngine.shutdown();
 		synchronized (displayLock) {
-			cleanupDisplayItems();
+			// Display entities stay in the world and are adopted on the next start
+			displayItems.clear();
+			chunkShopLocations.clear();
 		}
 		saveAll();
 	}
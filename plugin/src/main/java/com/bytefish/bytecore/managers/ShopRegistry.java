@@ -0,0 +1,662 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shops keyed by world plus a packed block coordinate. Each world has an
+ * open-addressing table of primitive keys, so lookups neither hash a
+ * {@link Location} nor allocate. A second table per world maps chunk keys to
+ * the shops in that chunk, so chunk events never scan every shop; it doubles
+ * as the grid for nearest-shop queries. Tables are copied on write and
+ * published atomically; shops change rarely, and lookups run on every hopper
+ * tick and from the API threads without locking.
+ */
+public class ShopRegistry {
+
+	private static final WorldTable[] NO_WORLDS = new WorldTable[0];
+
+	private volatile WorldTable[] worlds = NO_WORLDS;
+	// Shops whose world isn't loaded; kept so they are saved back unchanged
+	// and placed again once their world loads
+	private volatile List<Shop> unplaced = List.of();
+
+	/**
+	 * Immutable linear-probing table for a single world. A null value marks an
+	 * empty slot, so every long is a valid key.
+	 */
+	private static final class WorldTable {
+
+		private final String world;
+		private final long[] keys;
+		private final Shop[] values;
+		private final int size;
+		// Chunk index, same layout: a null entry marks an empty slot
+		private final long[] chunkKeys;
+		private final Shop[][] chunkShops;
+		// Packed block position of each shop in chunkShops
+		private final long[][] chunkPositions;
+		private final int chunkCount;
+		// Bounds of the occupied chunks, so searches know when to stop
+		private final int minChunkX;
+		private final int maxChunkX;
+		private final int minChunkZ;
+		private final int maxChunkZ;
+
+		private WorldTable(String world, long[] keys, Shop[] values, int size) {
+			this.world = world;
+			this.keys = keys;
+			this.values = values;
+			this.size = size;
+
+			// Slots of the main table, grouped by chunk
+			Map<Long, List<Integer>> byChunk = new HashMap<>();
+			int minX = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE;
+			int minZ = Integer.MAX_VALUE;
+			int maxZ = Integer.MIN_VALUE;
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] != null) {
+					int chunkX = BlockKeys.unpackX(keys[i]) >> 4;
+					int chunkZ = BlockKeys.unpackZ(keys[i]) >> 4;
+					minX = Math.min(minX, chunkX);
+					maxX = Math.max(maxX, chunkX);
+					minZ = Math.min(minZ, chunkZ);
+					maxZ = Math.max(maxZ, chunkZ);
+					long chunkKey = BlockKeys.chunkKey(chunkX, chunkZ);
+					byChunk
+						.computeIfAbsent(chunkKey, k -> new ArrayList<>())
+						.add(i);
+				}
+			}
+			this.chunkCount = byChunk.size();
+			this.minChunkX = minX;
+			this.maxChunkX = maxX;
+			this.minChunkZ = minZ;
+			this.maxChunkZ = maxZ;
+			int capacity = 8;
+			while (byChunk.size() * 2 > capacity) {
+				capacity <<= 1;
+			}
+			this.chunkKeys = new long[capacity];
+			this.chunkShops = new Shop[capacity][];
+			this.chunkPositions = new long[capacity][];
+			int mask = capacity - 1;
+			for (Map.Entry<Long, List<Integer>> entry : byChunk.entrySet()) {
+				int i = BlockKeys.hash(entry.getKey()) & mask;
+				while (chunkShops[i] != null) {
+					i = (i + 1) & mask;
+				}
+				List<Integer> slots = entry.getValue();
+				chunkKeys[i] = entry.getKey();
+				chunkShops[i] = new Shop[slots.size()];
+				chunkPositions[i] = new long[slots.size()];
+				for (int j = 0; j < slots.size(); j++) {
+					chunkShops[i][j] = values[slots.get(j)];
+					chunkPositions[i][j] = keys[slots.get(j)];
+				}
+			}
+		}
+
+		@Nullable
+		private Shop[] getChunk(long chunkKey) {
+			int slot = chunkSlot(chunkKey);
+			return slot >= 0 ? chunkShops[slot] : null;
+		}
+
+		/**
+		 * Slot of the chunk in the chunk index, or -1 if it has no shops
+		 */
+		private int chunkSlot(long chunkKey) {
+			int mask = chunkKeys.length - 1;
+			for (
+				int i = BlockKeys.hash(chunkKey) & mask;
+				;
+				i = (i + 1) & mask
+			) {
+				if (chunkShops[i] == null) return -1;
+				if (chunkKeys[i] == chunkKey) return i;
+			}
+		}
+
+		private static WorldTable empty(String world) {
+			return new WorldTable(world, new long[8], new Shop[8], 0);
+		}
+
+		private static WorldTable of(String world, List<Shop> shops) {
+			int capacity = 8;
+			while (shops.size() * 2 > capacity) {
+				capacity <<= 1;
+			}
+			long[] keys = new long[capacity];
+			Shop[] values = new Shop[capacity];
+			int size = 0;
+			for (Shop shop : shops) {
+				long key = shop.getPositionKey();
+				// Later duplicates replace earlier ones, as with a map
+				int mask = capacity - 1;
+				int i = BlockKeys.hash(key) & mask;
+				while (values[i] != null && keys[i] != key) {
+					i = (i + 1) & mask;
+				}
+				if (values[i] == null) size++;
+				keys[i] = key;
+				values[i] = shop;
+			}
+			return new WorldTable(world, keys, values, size);
+		}
+
+		@Nullable
+		private Shop get(long key) {
+			int mask = keys.length - 1;
+			for (
+				int i = BlockKeys.hash(key) & mask;
+				;
+				i = (i + 1) & mask
+			) {
+				Shop shop = values[i];
+				if (shop == null) return null;
+				if (keys[i] == key) return shop;
+			}
+		}
+
+		private WorldTable with(long key, Shop shop) {
+			int capacity = keys.length;
+			// Keep the load factor at or below one half
+			while ((size + 1) * 2 > capacity) {
+				capacity <<= 1;
+			}
+			long[] newKeys = new long[capacity];
+			Shop[] newValues = new Shop[capacity];
+			int newSize = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] != null && keys[i] != key) {
+					insert(newKeys, newValues, keys[i], values[i]);
+					newSize++;
+				}
+			}
+			insert(newKeys, newValues, key, shop);
+			return new WorldTable(world, newKeys, newValues, newSize + 1);
+		}
+
+		private WorldTable without(long key) {
+			if (get(key) == null) return this;
+			long[] newKeys = new long[keys.length];
+			Shop[] newValues = new Shop[values.length];
+			for (int i = 0; i < keys.length; i++) {
+				if (values[i] != null && keys[i] != key) {
+					insert(newKeys, newValues, keys[i], values[i]);
+				}
+			}
+			return new WorldTable(world, newKeys, newValues, size - 1);
+		}
+
+		private static void insert(
+			long[] keys,
+			Shop[] values,
+			long key,
+			Shop shop
+		) {
+			int mask = keys.length - 1;
+			int i = BlockKeys.hash(key) & mask;
+			while (values[i] != null) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = shop;
+		}
+	}
+
+	/**
+	 * A shop found by a spatial query, with its squared distance to the origin
+	 */
+	public record Nearby(Shop shop, double distanceSquared) {}
+
+	/**
+	 * State of one nearest-neighbour search: the best candidates so far, kept
+	 * in a max-heap so the worst is replaced first
+	 */
+	private static final class NearestSearch {
+
+		private final WorldTable table;
+		private final double x;
+		private final double y;
+		private final double z;
+		private final int limit;
+		private final double maxDistanceSquared;
+		private final Predicate<Shop> filter;
+		private final PriorityQueue<Nearby> best = new PriorityQueue<>(
+			Comparator.comparingDouble(Nearby::distanceSquared).reversed()
+		);
+		private int chunksVisited;
+
+		private NearestSearch(
+			WorldTable table,
+			double x,
+			double y,
+			double z,
+			int limit,
+			double maxDistance,
+			@Nullable Predicate<Shop> filter
+		) {
+			this.table = table;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.limit = limit;
+			this.maxDistanceSquared = maxDistance * maxDistance;
+			this.filter = filter;
+		}
+
+		/**
+		 * Whether nothing at or beyond the given squared distance can improve
+		 * the results
+		 */
+		private boolean isComplete(double boundSquared) {
+			return (
+				boundSquared > maxDistanceSquared ||
+				(best.size() >= limit &&
+					boundSquared >= best.peek().distanceSquared())
+			);
+		}
+
+		private void visit(int slot) {
+			chunksVisited++;
+			if (slot < 0) return;
+
+			Shop[] shops = table.chunkShops[slot];
+			long[] positions = table.chunkPositions[slot];
+			for (int i = 0; i < shops.length; i++) {
+				long position = positions[i];
+				double dx = BlockKeys.unpackX(position) + 0.5 - x;
+				double dy = BlockKeys.unpackY(position) + 0.5 - y;
+				double dz = BlockKeys.unpackZ(position) + 0.5 - z;
+				double distanceSquared = dx * dx + dy * dy + dz * dz;
+				if (distanceSquared > maxDistanceSquared) continue;
+				if (
+					best.size() >= limit &&
+					distanceSquared >= best.peek().distanceSquared()
+				) {
+					continue;
+				}
+				if (filter != null && !filter.test(shops[i])) continue;
+
+				if (best.size() >= limit) best.poll();
+				best.add(new Nearby(shops[i], distanceSquared));
+			}
+		}
+
+		/**
+		 * Visits every occupied chunk outside the square of rings already done
+		 */
+		private void visitOccupiedBeyond(int originX, int originZ, int ring) {
+			for (int slot = 0; slot < table.chunkKeys.length; slot++) {
+				if (table.chunkShops[slot] == null) continue;
+				long chunkKey = table.chunkKeys[slot];
+				int distance = Math.max(
+					Math.abs(BlockKeys.chunkX(chunkKey) - originX),
+					Math.abs(BlockKeys.chunkZ(chunkKey) - originZ)
+				);
+				if (distance > ring) visit(slot);
+			}
+		}
+
+		private List<Nearby> results() {
+			List<Nearby> results = new ArrayList<>(best);
+			results.sort(Comparator.comparingDouble(Nearby::distanceSquared));
+			return results;
+		}
+	}
+
+	public boolean contains(World world, int x, int y, int z) {
+		return get(world, x, y, z) != null;
+	}
+
+	@Nullable
+	public Shop get(World world, int x, int y, int z) {
+		WorldTable table = find(worlds, world.getName());
+		return table != null ? table.get(BlockKeys.pack(x, y, z)) : null;
+	}
+
+	/**
+	 * Answers whether a chunk contains any shop without allocating
+	 */
+	public boolean hasShopsInChunk(World world, int chunkX, int chunkZ) {
+		WorldTable table = find(worlds, world.getName());
+		return (
+			table != null &&
+			table.getChunk(BlockKeys.chunkKey(chunkX, chunkZ)) != null
+		);
+	}
+
+	/**
+	 * Whether any chunk within one block of the column holds a shop
+	 */
+	public boolean hasShopsNear(World world, int blockX, int blockZ) {
+		WorldTable table = find(worlds, world.getName());
+		if (table == null) return false;
+		int minChunkX = (blockX - 1) >> 4;
+		int maxChunkX = (blockX + 1) >> 4;
+		int minChunkZ = (blockZ - 1) >> 4;
+		int maxChunkZ = (blockZ + 1) >> 4;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				long chunkKey = BlockKeys.chunkKey(chunkX, chunkZ);
+				if (table.getChunk(chunkKey) != null) return true;
+			}
+		}
+		return false;
+	}
+
+	public List<Shop> getShopsInChunk(World world, int chunkX, int chunkZ) {
+		WorldTable table = find(worlds, world.getName());
+		Shop[] shops = table != null
+			? table.getChunk(BlockKeys.chunkKey(chunkX, chunkZ))
+			: null;
+		return shops != null ? List.of(shops) : List.of();
+	}
+
+	/**
+	 * Up to {@code limit} shops closest to the point, nearest first, within
+	 * {@code maxDistance}. Chunks are visited in square rings around the
+	 * point, and the search stops once no unvisited chunk can hold anything
+	 * closer than the shops already found. If the rings would cover far more
+	 * chunks than hold shops, the remaining occupied chunks are scanned
+	 * directly instead.
+	 */
+	public List<Nearby> nearest(
+		World world,
+		double x,
+		double y,
+		double z,
+		int limit,
+		double maxDistance,
+		@Nullable Predicate<Shop> filter
+	) {
+		WorldTable table = find(worlds, world.getName());
+		if (table == null || table.size == 0 || limit <= 0) return List.of();
+
+		NearestSearch search = new NearestSearch(
+			table,
+			x,
+			y,
+			z,
+			limit,
+			maxDistance,
+			filter
+		);
+		int originChunkX = (int) Math.floor(x) >> 4;
+		int originChunkZ = (int) Math.floor(z) >> 4;
+		int maxRing = Math.max(
+			Math.max(
+				originChunkX - table.minChunkX,
+				table.maxChunkX - originChunkX
+			),
+			Math.max(
+				originChunkZ - table.minChunkZ,
+				table.maxChunkZ - originChunkZ
+			)
+		);
+		long ringBudget = table.chunkCount * 4L + 64;
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			// A chunk in ring r is at least r - 1 whole chunks away
+			double bound = Math.max(0, ring - 1) * 16.0;
+			if (search.isComplete(bound * bound)) break;
+
+			if (search.chunksVisited > ringBudget) {
+				// Sparse world: scan what the rings have not reached yet
+				search.visitOccupiedBeyond(
+					originChunkX,
+					originChunkZ,
+					ring - 1
+				);
+				break;
+			}
+
+			for (int dx = -ring; dx <= ring; dx++) {
+				// Whole columns on the ring's edges, only the ends in between
+				int step = dx == -ring || dx == ring ? 1 : 2 * ring;
+				for (int dz = -ring; dz <= ring; dz += step) {
+					long chunkKey = BlockKeys.chunkKey(
+						originChunkX + dx,
+						originChunkZ + dz
+					);
+					search.visit(table.chunkSlot(chunkKey));
+				}
+			}
+		}
+		return search.results();
+	}
+
+	/**
+	 * Every shop within {@code radius} of the point, nearest first
+	 */
+	public List<Nearby> within(
+		World world,
+		double x,
+		double y,
+		double z,
+		double radius,
+		@Nullable Predicate<Shop> filter
+	) {
+		return nearest(world, x, y, z, Integer.MAX_VALUE, radius, filter);
+	}
+
+	@Nullable
+	public Shop get(Location location) {
+		if (location.getWorld() == null) return null;
+		return get(
+			location.getWorld(),
+			location.getBlockX(),
+			location.getBlockY(),
+			location.getBlockZ()
+		);
+	}
+
+	public boolean contains(Location location) {
+		return get(location) != null;
+	}
+
+	public synchronized void put(Shop shop) {
+		World shopWorld = shop.getWorld();
+		if (shopWorld == null) {
+			List<Shop> updated = new ArrayList<>(unplaced);
+			updated.add(shop);
+			unplaced = List.copyOf(updated);
+			return;
+		}
+		String world = shopWorld.getName();
+		long key = shop.getPositionKey();
+
+		WorldTable[] current = worlds;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].world.equals(world)) {
+				WorldTable[] updated = current.clone();
+				updated[i] = current[i].with(key, shop);
+				worlds = updated;
+				return;
+			}
+		}
+		WorldTable[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = WorldTable.empty(world).with(key, shop);
+		worlds = updated;
+	}
+
+	@Nullable
+	public synchronized Shop remove(Location location) {
+		if (location.getWorld() == null) return null;
+		long key = keyOf(location);
+
+		WorldTable[] current = worlds;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].world.equals(location.getWorld().getName())) {
+				Shop removed = current[i].get(key);
+				if (removed == null) return null;
+				WorldTable[] updated = current.clone();
+				updated[i] = current[i].without(key);
+				worlds = updated;
+				return removed;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces the whole registry, building each world's table in one pass
+	 */
+	public synchronized void replaceAll(Collection<Shop> shops) {
+		Map<String, List<Shop>> byWorld = new HashMap<>();
+		List<Shop> withoutWorld = new ArrayList<>();
+		for (Shop shop : shops) {
+			World world = shop.getWorld();
+			if (world == null) {
+				withoutWorld.add(shop);
+			} else {
+				byWorld
+					.computeIfAbsent(world.getName(), k -> new ArrayList<>())
+					.add(shop);
+			}
+		}
+
+		WorldTable[] tables = new WorldTable[byWorld.size()];
+		int i = 0;
+		for (Map.Entry<String, List<Shop>> entry : byWorld.entrySet()) {
+			tables[i++] = WorldTable.of(entry.getKey(), entry.getValue());
+		}
+		worlds = tables;
+		unplaced = List.copyOf(withoutWorld);
+	}
+
+	/**
+	 * Builds the table for a world that just loaded from its unplaced shops
+	 */
+	public synchronized void loadWorld(String world) {
+		List<Shop> placed = new ArrayList<>();
+		List<Shop> remaining = new ArrayList<>();
+		for (Shop shop : unplaced) {
+			if (shop.getWorldName().equals(world)) {
+				placed.add(shop);
+			} else {
+				remaining.add(shop);
+			}
+		}
+		if (placed.isEmpty()) return;
+
+		WorldTable[] current = worlds;
+		WorldTable existing = find(current, world);
+		if (existing != null) {
+			for (Shop shop : existing.values) {
+				if (shop != null) placed.add(shop);
+			}
+		}
+		WorldTable table = WorldTable.of(world, placed);
+		WorldTable[] updated;
+		if (existing != null) {
+			updated = current.clone();
+			updated[Arrays.asList(current).indexOf(existing)] = table;
+		} else {
+			updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = table;
+		}
+		worlds = updated;
+		unplaced = List.copyOf(remaining);
+	}
+
+	/**
+	 * Drops the tables of an unloading world and holds its shops unplaced
+	 *
+	 * @return the shops that were placed in the world
+	 */
+	public synchronized List<Shop> unloadWorld(String world) {
+		WorldTable[] current = worlds;
+		WorldTable table = find(current, world);
+		if (table == null) return List.of();
+
+		List<Shop> evicted = getShopsInWorld(world);
+		WorldTable[] updated = new WorldTable[current.length - 1];
+		int i = 0;
+		for (WorldTable other : current) {
+			if (other != table) updated[i++] = other;
+		}
+		List<Shop> held = new ArrayList<>(unplaced);
+		held.addAll(evicted);
+		worlds = updated;
+		unplaced = List.copyOf(held);
+		return evicted;
+	}
+
+	public List<Shop> getShopsInWorld(String world) {
+		WorldTable table = find(worlds, world);
+		if (table == null) return List.of();
+		List<Shop> shops = new ArrayList<>(table.size);
+		for (Shop shop : table.values) {
+			if (shop != null) shops.add(shop);
+		}
+		return shops;
+	}
+
+	/**
+	 * Number of shops whose world is not loaded
+	 */
+	public int unplacedSize() {
+		return unplaced.size();
+	}
+
+	public synchronized void clear() {
+		worlds = NO_WORLDS;
+		unplaced = List.of();
+	}
+
+	public int size() {
+		int size = unplaced.size();
+		for (WorldTable table : worlds) {
+			size += table.size;
+		}
+		return size;
+	}
+
+	public void forEach(Consumer<Shop> action) {
+		for (WorldTable table : worlds) {
+			for (Shop shop : table.values) {
+				if (shop != null) action.accept(shop);
+			}
+		}
+		unplaced.forEach(action);
+	}
+
+	/**
+	 * Returns a snapshot of every registered shop
+	 */
+	public List<Shop> values() {
+		List<Shop> values = new ArrayList<>(size());
+		forEach(values::add);
+		return values;
+	}
+
+	private static long keyOf(Location loc) {
+		return BlockKeys.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+	}
+
+	@Nullable
+	private static WorldTable find(WorldTable[] tables, String world) {
+		// Servers have a handful of worlds, a scan beats hashing here
+		for (WorldTable table : tables) {
+			if (table.world.equals(world)) return table;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,147 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-shop counters for the units a shop can still sell and the payment it
+ * can still take in. Counting means walking every container slot and
+ * comparing item meta, so the counters are kept between purchases and taken
+ * from the contents a completed sale leaves behind. A container is only
+ * recounted when its counters are missing, stale, old, or too close to what
+ * a purchase needs.
+ */
+public class ShopStockCache {
+
+	private static final long MAX_AGE_MILLIS = 30_000;
+	// Counters below this many lots are confirmed against the container
+	private static final int LOW_LOTS = 2;
+
+	private final Map<UUID, Level> levels = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong recounts = new AtomicLong();
+
+	/**
+	 * A shop's counters, in units of the selling and the price item
+	 */
+	public record Level(
+		int stock,
+		int paymentSpace,
+		long countedAt,
+		boolean stale
+	) {
+		public boolean canSell(Shop shop) {
+			return stock >= shop.getSellingAmount();
+		}
+
+		public boolean canAcceptPayment(Shop shop) {
+			return paymentSpace >= shop.getPriceAmount();
+		}
+
+		public int lotsInStock(Shop shop) {
+			return stock / shop.getSellingAmount();
+		}
+	}
+
+	/**
+	 * Current counters for the shop, recounting its container when the
+	 * cached ones can't be trusted. Main thread only.
+	 */
+	public Level get(Shop shop, Inventory inventory) {
+		Level level = levels.get(shop.getId());
+		if (level != null && !needsRecount(shop, level)) {
+			hits.incrementAndGet();
+			return level;
+		}
+		return recount(shop, inventory);
+	}
+
+	/**
+	 * Last known counters without touching the container, safe off the main
+	 * thread
+	 */
+	@Nullable
+	public Level peek(UUID shopId) {
+		return levels.get(shopId);
+	}
+
+	public Level recount(Shop shop, Inventory inventory) {
+		recounts.incrementAndGet();
+		Level level = count(shop, inventory.getStorageContents());
+		levels.put(shop.getId(), level);
+		return level;
+	}
+
+	/**
+	 * Stores counters taken from contents already in hand, such as those a
+	 * transaction plan leaves behind
+	 */
+	public Level update(Shop shop, ItemStack[] contents) {
+		Level level = count(shop, contents);
+		levels.put(shop.getId(), level);
+		return level;
+	}
+
+	public void invalidate(UUID shopId) {
+		levels.computeIfPresent(shopId, (id, level) ->
+			new Level(
+				level.stock(),
+				level.paymentSpace(),
+				level.countedAt(),
+				true
+			)
+		);
+	}
+
+	public void remove(UUID shopId) {
+		levels.remove(shopId);
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getRecounts() {
+		return recounts.get();
+	}
+
+	private static boolean needsRecount(Shop shop, Level level) {
+		return (
+			level.stale() ||
+			System.currentTimeMillis() - level.countedAt() > MAX_AGE_MILLIS ||
+			level.stock() < shop.getSellingAmount() * LOW_LOTS ||
+			level.paymentSpace() < shop.getPriceAmount() * LOW_LOTS
+		);
+	}
+
+	/**
+	 * Counts stock and payment space in a single pass over the contents
+	 */
+	private static Level count(Shop shop, ItemStack[] contents) {
+		ItemStack price = shop.getPriceTemplate();
+		int stock = 0;
+		int space = 0;
+		for (ItemStack stack : contents) {
+			if (stack == null || stack.getType().isAir()) {
+				space += price.getMaxStackSize();
+				continue;
+			}
+			if (shop.isSellingStock(stack)) {
+				stock += stack.getAmount();
+			}
+			if (stack.isSimilar(price)) {
+				space += Math.max(
+					0,
+					stack.getMaxStackSize() - stack.getAmount()
+				);
+			}
+		}
+		return new Level(stock, space, System.currentTimeMillis(), false);
+	}
+}
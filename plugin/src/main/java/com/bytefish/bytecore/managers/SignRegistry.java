@@ -0,0 +1,336 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Every position that may hold a protected sign, keyed by world plus a packed
+ * block coordinate. A shop registers the four blocks beside its container,
+ * since a wall sign on any of them may belong to the shop, and a location
+ * registers its sign block. Listeners ask here before snapshotting any block
+ * state, so ordinary signs and blocks are ruled out with a primitive lookup.
+ * Like {@link ShopRegistry}, the per-world tables are rebuilt on write and
+ * published atomically.
+ */
+public class SignRegistry {
+
+	private static final SignTable[] NO_WORLDS = new SignTable[0];
+	private static final BlockFace[] SHOP_FACES = {
+		BlockFace.NORTH,
+		BlockFace.SOUTH,
+		BlockFace.EAST,
+		BlockFace.WEST,
+	};
+
+	// Source of truth for the published tables, guarded by this
+	private final Map<String, Map<Long, Entry>> entries = new HashMap<>();
+	private volatile SignTable[] worlds = NO_WORLDS;
+
+	/**
+	 * What a registered position protects
+	 */
+	public static final class Entry {
+
+		// Directions from this position to a shop container, one bit per face
+		private final int shopFaces;
+		private final UUID locationId;
+
+		private Entry(int shopFaces, @Nullable UUID locationId) {
+			this.shopFaces = shopFaces;
+			this.locationId = locationId;
+		}
+
+		/**
+		 * Whether a wall sign here, attached towards the given face, is on a shop
+		 */
+		public boolean hasShopOn(BlockFace face) {
+			return (shopFaces & bit(face)) != 0;
+		}
+
+		public boolean hasShops() {
+			return shopFaces != 0;
+		}
+
+		@Nullable
+		public UUID getLocationId() {
+			return locationId;
+		}
+
+		private boolean isEmpty() {
+			return shopFaces == 0 && locationId == null;
+		}
+	}
+
+	/**
+	 * Immutable linear-probing table for a single world
+	 */
+	private static final class SignTable {
+
+		private final String world;
+		private final long[] keys;
+		private final Entry[] values;
+
+		private SignTable(String world, Map<Long, Entry> entries) {
+			this.world = world;
+			int capacity = 8;
+			while (entries.size() * 2 > capacity) {
+				capacity <<= 1;
+			}
+			this.keys = new long[capacity];
+			this.values = new Entry[capacity];
+			int mask = capacity - 1;
+			for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+				int i = BlockKeys.hash(entry.getKey()) & mask;
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = entry.getKey();
+				values[i] = entry.getValue();
+			}
+		}
+
+		@Nullable
+		private Entry get(long key) {
+			int mask = keys.length - 1;
+			for (
+				int i = BlockKeys.hash(key) & mask;
+				;
+				i = (i + 1) & mask
+			) {
+				Entry entry = values[i];
+				if (entry == null) return null;
+				if (keys[i] == key) return entry;
+			}
+		}
+	}
+
+	@Nullable
+	public Entry get(Block block) {
+		return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+	}
+
+	@Nullable
+	public Entry get(World world, int x, int y, int z) {
+		String name = world.getName();
+		for (SignTable table : worlds) {
+			if (table.world.equals(name)) {
+				return table.get(BlockKeys.pack(x, y, z));
+			}
+		}
+		return null;
+	}
+
+	public synchronized void addShop(Location location) {
+		if (location.getWorld() == null) return;
+		String world = location.getWorld().getName();
+		updateShop(
+			world,
+			location.getBlockX(),
+			location.getBlockY(),
+			location.getBlockZ(),
+			true
+		);
+		publish(world);
+	}
+
+	public synchronized void removeShop(Location location) {
+		if (location.getWorld() == null) return;
+		String world = location.getWorld().getName();
+		updateShop(
+			world,
+			location.getBlockX(),
+			location.getBlockY(),
+			location.getBlockZ(),
+			false
+		);
+		publish(world);
+	}
+
+	/**
+	 * Drops every shop slot and registers the given shops in one pass
+	 */
+	public synchronized void replaceShops(Collection<Shop> shops) {
+		for (Map<Long, Entry> world : entries.values()) {
+			Iterator<Map.Entry<Long, Entry>> it = world.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Long, Entry> entry = it.next();
+				if (entry.getValue().locationId == null) {
+					it.remove();
+				} else {
+					entry.setValue(new Entry(0, entry.getValue().locationId));
+				}
+			}
+		}
+		// By world name, so shops in unloaded worlds are ready once they load
+		for (Shop shop : shops) {
+			updateShop(
+				shop.getWorldName(),
+				shop.getBlockX(),
+				shop.getBlockY(),
+				shop.getBlockZ(),
+				true
+			);
+		}
+		publishAll();
+	}
+
+	public synchronized void addLocationSign(
+		com.bytefish.bytecore.models.Location location
+	) {
+		updateLocationSign(location, location.getId());
+		publish(location.getWorld());
+	}
+
+	public synchronized void removeLocationSign(
+		com.bytefish.bytecore.models.Location location
+	) {
+		updateLocationSign(location, null);
+		publish(location.getWorld());
+	}
+
+	/**
+	 * Drops every location sign and registers the given locations in one pass
+	 */
+	public synchronized void replaceLocationSigns(
+		Collection<com.bytefish.bytecore.models.Location> locations
+	) {
+		for (Map<Long, Entry> world : entries.values()) {
+			Iterator<Map.Entry<Long, Entry>> it = world.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Long, Entry> entry = it.next();
+				if (entry.getValue().shopFaces == 0) {
+					it.remove();
+				} else {
+					entry.setValue(new Entry(entry.getValue().shopFaces, null));
+				}
+			}
+		}
+		for (com.bytefish.bytecore.models.Location location : locations) {
+			updateLocationSign(location, location.getId());
+		}
+		publishAll();
+	}
+
+	public int size() {
+		int size = 0;
+		for (SignTable table : worlds) {
+			for (Entry entry : table.values) {
+				if (entry != null) size++;
+			}
+		}
+		return size;
+	}
+
+	private void updateShop(
+		String worldName,
+		int x,
+		int y,
+		int z,
+		boolean add
+	) {
+		Map<Long, Entry> world = entries.computeIfAbsent(worldName, k ->
+			new HashMap<>()
+		);
+		for (BlockFace face : SHOP_FACES) {
+			long key = BlockKeys.pack(
+				x + face.getModX(),
+				y,
+				z + face.getModZ()
+			);
+			// A sign in this slot faces away from the shop, so it is attached
+			// towards the opposite face
+			int bit = bit(face.getOppositeFace());
+			Entry current = world.get(key);
+			int shopFaces = current != null ? current.shopFaces : 0;
+			UUID locationId = current != null ? current.locationId : null;
+			put(
+				world,
+				key,
+				new Entry(add ? shopFaces | bit : shopFaces & ~bit, locationId)
+			);
+		}
+	}
+
+	private void updateLocationSign(
+		com.bytefish.bytecore.models.Location location,
+		@Nullable UUID locationId
+	) {
+		Map<Long, Entry> world = entries.computeIfAbsent(
+			location.getWorld(),
+			k -> new HashMap<>()
+		);
+		long key = BlockKeys.pack(
+			(int) Math.floor(location.getX()),
+			(int) Math.floor(location.getY()),
+			(int) Math.floor(location.getZ())
+		);
+		Entry current = world.get(key);
+		if (
+			locationId == null &&
+			(current == null || !location.getId().equals(current.locationId))
+		) {
+			// Another location has since claimed this sign
+			return;
+		}
+		put(
+			world,
+			key,
+			new Entry(current != null ? current.shopFaces : 0, locationId)
+		);
+	}
+
+	private static void put(Map<Long, Entry> world, long key, Entry entry) {
+		if (entry.isEmpty()) {
+			world.remove(key);
+		} else {
+			world.put(key, entry);
+		}
+	}
+
+	private void publish(String world) {
+		Map<Long, Entry> worldEntries = entries.getOrDefault(world, Map.of());
+		SignTable[] current = worlds;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].world.equals(world)) {
+				SignTable[] updated = current.clone();
+				updated[i] = new SignTable(world, worldEntries);
+				worlds = updated;
+				return;
+			}
+		}
+		SignTable[] updated = new SignTable[current.length + 1];
+		System.arraycopy(current, 0, updated, 0, current.length);
+		updated[current.length] = new SignTable(world, worldEntries);
+		worlds = updated;
+	}
+
+	private void publishAll() {
+		entries.values().removeIf(Map::isEmpty);
+		SignTable[] tables = new SignTable[entries.size()];
+		int i = 0;
+		for (Map.Entry<String, Map<Long, Entry>> world : entries.entrySet()) {
+			tables[i++] = new SignTable(world.getKey(), world.getValue());
+		}
+		worlds = tables;
+	}
+
+	private static int bit(BlockFace face) {
+		return switch (face) {
+			case NORTH -> 1;
+			case SOUTH -> 2;
+			case EAST -> 4;
+			case WEST -> 8;
+			default -> 0;
+		};
+	}
+}
@@ -0,0 +1,362 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A purchase worked out slot by slot before anything moves. Planning reads
+ * the shop and the buyer inventory once each, takes goods and payment from
+ * exact slots and places them the way {@link Inventory#addItem} would, all
+ * on copies. Applying writes only the changed slots, so a purchase happens
+ * completely or not at all and never has to be reverted.
+ */
+public final class TransactionPlan {
+
+	/**
+	 * Why a purchase can't go ahead, in the order the planner checks
+	 */
+	public enum Failure {
+		OUT_OF_STOCK("Shop is out of stock"),
+		INSUFFICIENT_PAYMENT("Insufficient payment items"),
+		SHOP_FULL("Shop is full and cannot accept payment"),
+		BUYER_FULL("Insufficient inventory space");
+
+		private final String reason;
+
+		Failure(String reason) {
+			this.reason = reason;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+	}
+
+	private final Slots shopSlots;
+	private final Slots buyerSlots;
+	private final int lots;
+	private final Failure failure;
+
+	private TransactionPlan(
+		Slots shopSlots,
+		Slots buyerSlots,
+		int lots,
+		Failure failure
+	) {
+		this.shopSlots = shopSlots;
+		this.buyerSlots = buyerSlots;
+		this.lots = lots;
+		this.failure = failure;
+	}
+
+	/**
+	 * Plans the purchase of the given number of lots. Goods are the actual
+	 * stacks taken from the shop, so the buyer gets exactly what was stocked.
+	 */
+	public static TransactionPlan plan(
+		Shop shop,
+		Inventory shopInventory,
+		Inventory buyerInventory,
+		int lots
+	) {
+		return plan(
+			shop,
+			shopInventory.getStorageContents(),
+			buyerInventory.getStorageContents(),
+			lots
+		);
+	}
+
+	/**
+	 * Plans as many lots as stock, payment and space allow, up to maxLots.
+	 * The limit is counted from each inventory's free room once its side of
+	 * the trade is taken, so only that lot count is planned.
+	 */
+	public static TransactionPlan planMax(
+		Shop shop,
+		Inventory shopInventory,
+		Inventory buyerInventory,
+		int maxLots
+	) {
+		ItemStack[] shopContents = shopInventory.getStorageContents();
+		ItemStack[] buyerContents = buyerInventory.getStorageContents();
+
+		ItemStack price = shop.getPriceTemplate();
+		int sellingAmount = shop.getSellingAmount();
+		int priceAmount = shop.getPriceAmount();
+		Room shopRoom = Room.of(shopContents, shop::isSellingStock, price);
+		Room buyerRoom = Room.of(
+			buyerContents,
+			price::isSimilar,
+			shop.getSellingTemplate()
+		);
+		int upper = Math.min(
+			maxLots,
+			Math.min(
+				shopRoom.takeable() / sellingAmount,
+				buyerRoom.takeable() / priceAmount
+			)
+		);
+
+		// Not bisected: paying more can free the slots the goods need, so a
+		// count may fit where a smaller one doesn't
+		int lots = 0;
+		for (int candidate = 1; candidate <= upper; candidate++) {
+			if (
+				shopRoom.after(candidate * sellingAmount) >=
+					candidate * priceAmount &&
+				buyerRoom.after(candidate * priceAmount) >=
+					candidate * sellingAmount
+			) {
+				lots = candidate;
+			}
+		}
+
+		if (lots > 1) {
+			TransactionPlan plan = plan(
+				shop,
+				shopContents,
+				buyerContents,
+				lots
+			);
+			if (plan.isPossible()) return plan;
+		}
+		// A single lot gives the precise reason when nothing can be bought
+		return plan(shop, shopContents, buyerContents, 1);
+	}
+
+	private static TransactionPlan plan(
+		Shop shop,
+		ItemStack[] shopContents,
+		ItemStack[] buyerContents,
+		int lots
+	) {
+		Slots shopSlots = new Slots(shopContents.clone());
+		Slots buyerSlots = new Slots(buyerContents.clone());
+		ItemStack price = shop.getPriceTemplate();
+
+		List<ItemStack> goods = new ArrayList<>();
+		int wanted = shop.getSellingAmount() * lots;
+		if (shopSlots.take(shop::isSellingStock, wanted, goods) < wanted) {
+			return new TransactionPlan(
+				shopSlots,
+				buyerSlots,
+				lots,
+				Failure.OUT_OF_STOCK
+			);
+		}
+
+		List<ItemStack> payment = new ArrayList<>();
+		int owed = shop.getPriceAmount() * lots;
+		if (buyerSlots.take(price::isSimilar, owed, payment) < owed) {
+			return new TransactionPlan(
+				shopSlots,
+				buyerSlots,
+				lots,
+				Failure.INSUFFICIENT_PAYMENT
+			);
+		}
+
+		// Placed after the takes, so freed slots can be reused
+		for (ItemStack stack : payment) {
+			if (!shopSlots.place(stack)) {
+				return new TransactionPlan(
+					shopSlots,
+					buyerSlots,
+					lots,
+					Failure.SHOP_FULL
+				);
+			}
+		}
+		for (ItemStack stack : goods) {
+			if (!buyerSlots.place(stack)) {
+				return new TransactionPlan(
+					shopSlots,
+					buyerSlots,
+					lots,
+					Failure.BUYER_FULL
+				);
+			}
+		}
+		return new TransactionPlan(shopSlots, buyerSlots, lots, null);
+	}
+
+	public boolean isPossible() {
+		return failure == null;
+	}
+
+	public Failure getFailure() {
+		return failure;
+	}
+
+	public int getLots() {
+		return lots;
+	}
+
+	/**
+	 * Writes the planned slots. Must run on the main thread right after
+	 * planning, before anything else can touch either inventory.
+	 */
+	public void apply(Inventory shopInventory, Inventory buyerInventory) {
+		if (failure != null) {
+			throw new IllegalStateException(
+				"Cannot apply a failed plan: " + failure.getReason()
+			);
+		}
+		shopSlots.apply(shopInventory);
+		buyerSlots.apply(buyerInventory);
+	}
+
+	/**
+	 * The shop's storage contents as they are once the plan is applied
+	 */
+	public ItemStack[] getShopContents() {
+		return shopSlots.contents;
+	}
+
+	/**
+	 * Room an inventory has for an incoming item after some of its own
+	 * stacks are taken, front to back as {@link Slots} takes them.
+	 */
+	private static final class Room {
+
+		private final int base;
+		private final int perSlot;
+		private final int[] takenUpTo;
+
+		private Room(int base, int perSlot, int[] takenUpTo) {
+			this.base = base;
+			this.perSlot = perSlot;
+			this.takenUpTo = takenUpTo;
+		}
+
+		static Room of(
+			ItemStack[] contents,
+			Predicate<ItemStack> taken,
+			ItemStack incoming
+		) {
+			int max = incoming.getMaxStackSize();
+			int base = 0;
+			int[] takenUpTo = new int[contents.length];
+			int takeable = 0;
+			int total = 0;
+			for (ItemStack stack : contents) {
+				if (Slots.isEmpty(stack)) {
+					base += max;
+				} else if (taken.test(stack)) {
+					total += stack.getAmount();
+					takenUpTo[takeable++] = total;
+				} else if (incoming.isSimilar(stack)) {
+					base += Math.max(0, max - stack.getAmount());
+				}
+			}
+			return new Room(base, max, Arrays.copyOf(takenUpTo, takeable));
+		}
+
+		int takeable() {
+			return takenUpTo.length == 0 ? 0 : takenUpTo[takenUpTo.length - 1];
+		}
+
+		/** Room left once amount is taken, counting the slots it empties */
+		int after(int amount) {
+			int i = Arrays.binarySearch(takenUpTo, amount);
+			int emptied = i >= 0 ? i + 1 : -i - 1;
+			return base + emptied * perSlot;
+		}
+	}
+
+	private static final class Slots {
+
+		private final ItemStack[] contents;
+		private final boolean[] changed;
+
+		private Slots(ItemStack[] contents) {
+			this.contents = contents;
+			this.changed = new boolean[contents.length];
+		}
+
+		/**
+		 * Takes up to the given amount of matching items, collecting what was
+		 * taken, and returns how much was found
+		 */
+		private int take(
+			Predicate<ItemStack> matches,
+			int amount,
+			List<ItemStack> taken
+		) {
+			int remaining = amount;
+			for (int i = 0; i < contents.length && remaining > 0; i++) {
+				ItemStack stack = contents[i];
+				if (isEmpty(stack) || !matches.test(stack)) continue;
+
+				int count = Math.min(stack.getAmount(), remaining);
+				taken.add(withAmount(stack, count));
+				set(
+					i,
+					count == stack.getAmount()
+						? null
+						: withAmount(stack, stack.getAmount() - count)
+				);
+				remaining -= count;
+			}
+			return amount - remaining;
+		}
+
+		/**
+		 * Tops up similar stacks first, then fills empty slots
+		 */
+		private boolean place(ItemStack item) {
+			int remaining = item.getAmount();
+			int max = item.getMaxStackSize();
+			for (int i = 0; i < contents.length && remaining > 0; i++) {
+				ItemStack stack = contents[i];
+				if (
+					isEmpty(stack) ||
+					stack.getAmount() >= max ||
+					!stack.isSimilar(item)
+				) {
+					continue;
+				}
+				int added = Math.min(max - stack.getAmount(), remaining);
+				set(i, withAmount(stack, stack.getAmount() + added));
+				remaining -= added;
+			}
+			for (int i = 0; i < contents.length && remaining > 0; i++) {
+				if (!isEmpty(contents[i])) continue;
+				int added = Math.min(max, remaining);
+				set(i, withAmount(item, added));
+				remaining -= added;
+			}
+			return remaining == 0;
+		}
+
+		private void set(int slot, ItemStack stack) {
+			contents[slot] = stack;
+			changed[slot] = true;
+		}
+
+		private void apply(Inventory inventory) {
+			for (int i = 0; i < contents.length; i++) {
+				if (changed[i]) {
+					inventory.setItem(i, contents[i]);
+				}
+			}
+		}
+
+		private static boolean isEmpty(ItemStack stack) {
+			return stack == null || stack.getType().isAir();
+		}
+
+		// Slots may be live views of the inventory, never modify them in place
+		private static ItemStack withAmount(ItemStack stack, int amount) {
+			ItemStack copy = stack.clone();
+			copy.setAmount(amount);
+			return copy;
+		}
+	}
+}
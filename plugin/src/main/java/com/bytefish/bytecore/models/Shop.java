@@ -1,20 +1,24 @@
 package com.bytefish.bytecore.models;
 
+import com.bytefish.bytecore.util.BlockKeys;
 import com.google.gson.annotations.Expose;
 import java.nio.file.*;
 import java.util.UUID;
 import java.util.concurrent.locks.ReentrantLock;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 public class Shop {
 
 	@Expose
 	private final UUID id;
 
+	// Serialized as {world, x, y, z}, the world by name
 	@Expose
-	private final Location location;
+	private final ShopPosition location;
 
 	@Expose
 	private final UUID ownerUUID;
@@ -75,7 +79,7 @@ public class Shop {
 		long creationTime
 	) {
 		this.id = id;
-		this.location = location;
+		this.location = ShopPosition.of(location);
 		this.ownerUUID = ownerUUID;
 		this.ownerName = ownerName;
 		this.sellingItem = sellingItem.clone();
@@ -90,8 +94,46 @@ public class Shop {
 		return id;
 	}
 
+	/**
+	 * A new Location of the shop, without a world while its world is unloaded
+	 */
 	public Location getLocation() {
-		return location.clone();
+		return location.toLocation();
+	}
+
+	public ShopPosition getPosition() {
+		return location;
+	}
+
+	public String getWorldName() {
+		return location.getWorldName();
+	}
+
+	/**
+	 * The shop's world, or null while it is unloaded
+	 */
+	@Nullable
+	public World getWorld() {
+		return location.resolveWorld();
+	}
+
+	public int getBlockX() {
+		return location.getX();
+	}
+
+	public int getBlockY() {
+		return location.getY();
+	}
+
+	public int getBlockZ() {
+		return location.getZ();
+	}
+
+	/**
+	 * Block position packed with {@link BlockKeys#pack}
+	 */
+	public long getPositionKey() {
+		return location.getKey();
 	}
 
 	public UUID getOwnerUUID() {
@@ -110,10 +152,60 @@ public class Shop {
 		return sellingAmount;
 	}
 
+	public Material getSellingType() {
+		return sellingItem.getType();
+	}
+
+	/**
+	 * The selling item itself, for reads and comparisons only. It must never
+	 * be modified or put into an inventory, use {@link #createSellingStack}.
+	 */
+	public ItemStack getSellingTemplate() {
+		return sellingItem;
+	}
+
+	/**
+	 * A fresh stack of one lot, ready to hand to an inventory
+	 */
+	public ItemStack createSellingStack() {
+		ItemStack stack = sellingItem.clone();
+		stack.setAmount(sellingAmount);
+		return stack;
+	}
+
+	/**
+	 * Whether the stack counts as stock: similar to the selling item in
+	 * everything but amount, so potions, damage, names and contents match
+	 */
+	public boolean isSellingStock(@Nullable ItemStack stack) {
+		return stack != null && sellingItem.isSimilar(stack);
+	}
+
 	public ItemStack getPriceItem() {
 		return priceItem.clone();
 	}
 
+	public Material getPriceType() {
+		return priceItem.getType();
+	}
+
+	/**
+	 * The price item itself, for reads and comparisons only. It must never
+	 * be modified or put into an inventory, use {@link #createPriceStack}.
+	 */
+	public ItemStack getPriceTemplate() {
+		return priceItem;
+	}
+
+	/**
+	 * A fresh stack of one payment, ready to hand to an inventory
+	 */
+	public ItemStack createPriceStack() {
+		ItemStack stack = priceItem.clone();
+		stack.setAmount(priceAmount);
+		return stack;
+	}
+
 	public int getPriceAmount() {
 		return priceAmount;
 	}
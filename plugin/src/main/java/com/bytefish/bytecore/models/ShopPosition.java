@@ -0,0 +1,101 @@
+package com.bytefish.bytecore.models;
+
+import com.bytefish.bytecore.util.BlockKeys;
+import com.google.gson.annotations.Expose;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A block position that names its world instead of referencing it. Shops in
+ * a world that is not loaded keep their position, and nothing here holds on
+ * to an unloaded World. Serializes as {world, x, y, z} like a Location.
+ */
+public final class ShopPosition {
+
+	@Expose
+	private final String world;
+
+	@Expose
+	private final int x;
+
+	@Expose
+	private final int y;
+
+	@Expose
+	private final int z;
+
+	public ShopPosition(String world, int x, int y, int z) {
+		this.world = world;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	public static ShopPosition of(Location location) {
+		return new ShopPosition(
+			location.getWorld().getName(),
+			location.getBlockX(),
+			location.getBlockY(),
+			location.getBlockZ()
+		);
+	}
+
+	public String getWorldName() {
+		return world;
+	}
+
+	/**
+	 * The world if it is currently loaded
+	 */
+	@Nullable
+	public World resolveWorld() {
+		return Bukkit.getWorld(world);
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getZ() {
+		return z;
+	}
+
+	public long getKey() {
+		return BlockKeys.pack(x, y, z);
+	}
+
+	/**
+	 * A new Location for this position, without a world if it isn't loaded
+	 */
+	public Location toLocation() {
+		return new Location(resolveWorld(), x, y, z);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof ShopPosition other)) return false;
+		return (
+			x == other.x &&
+			y == other.y &&
+			z == other.z &&
+			world.equals(other.world)
+		);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * world.hashCode() + Long.hashCode(getKey());
+	}
+
+	@Override
+	public String toString() {
+		return world + " " + x + ", " + y + ", " + z;
+	}
+}
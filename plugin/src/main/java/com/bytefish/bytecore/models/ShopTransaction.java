@@ -9,8 +9,7 @@ public class ShopTransaction {
 	private final UUID id;
 	private final Shop shop;
 	private final Player buyer;
-	private final ItemStack itemsBought;
-	private final ItemStack itemsPaid;
+	private int lots;
 	private final long timestamp;
 	private TransactionStatus status;
 	private String failureReason;
@@ -22,17 +21,15 @@ public class ShopTransaction {
 		REVERSED,
 	}
 
-	public ShopTransaction(
-		Shop shop,
-		Player buyer,
-		ItemStack itemsBought,
-		ItemStack itemsPaid
-	) {
+	public ShopTransaction(Shop shop, Player buyer) {
+		this(shop, buyer, 1);
+	}
+
+	public ShopTransaction(Shop shop, Player buyer, int lots) {
 		this.id = UUID.randomUUID();
 		this.shop = shop;
 		this.buyer = buyer;
-		this.itemsBought = itemsBought.clone();
-		this.itemsPaid = itemsPaid.clone();
+		this.lots = lots;
 		this.timestamp = System.currentTimeMillis();
 		this.status = TransactionStatus.PENDING;
 	}
@@ -49,12 +46,25 @@ public class ShopTransaction {
 		return buyer;
 	}
 
+	/**
+	 * A fresh stack of one lot of what was bought, copied from the shop
+	 */
 	public ItemStack getItemsBought() {
-		return itemsBought.clone();
+		return shop.createSellingStack();
 	}
 
+	/**
+	 * A fresh stack of one lot's payment, copied from the shop
+	 */
 	public ItemStack getItemsPaid() {
-		return itemsPaid.clone();
+		return shop.createPriceStack();
+	}
+
+	/**
+	 * Lots requested, or bought once the transaction completed
+	 */
+	public int getLots() {
+		return lots;
 	}
 
 	public long getTimestamp() {
@@ -73,6 +83,14 @@ public class ShopTransaction {
 		this.status = TransactionStatus.COMPLETED;
 	}
 
+	/**
+	 * Completes a bulk purchase with the number of lots actually bought
+	 */
+	public void complete(int lotsBought) {
+		this.lots = lotsBought;
+		complete();
+	}
+
 	public void fail(String reason) {
 		this.status = TransactionStatus.FAILED;
 		this.failureReason = reason;
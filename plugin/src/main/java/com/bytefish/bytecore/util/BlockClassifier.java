@@ -0,0 +1,66 @@
+package com.bytefish.bytecore.util;
+
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.block.Container;
+
+/**
+ * Maps every material to the categories the plugin cares about, indexed by
+ * ordinal. Hot event handlers check the block type here first and only look
+ * up registries or snapshot block state when the block can matter at all.
+ */
+public class BlockClassifier {
+
+	private static final byte SIGN = 1;
+	private static final byte WALL_SIGN = 1 << 1;
+	private static final byte SHOP_CONTAINER = 1 << 2;
+	private static final byte CONTAINER = 1 << 3;
+
+	private final byte[] categories;
+
+	public BlockClassifier(Set<Material> shopContainers) {
+		Material[] materials = Material.values();
+		this.categories = new byte[materials.length];
+		for (Material material : materials) {
+			if (material.isLegacy() || !material.isBlock()) continue;
+
+			byte category = 0;
+			if (Tag.ALL_SIGNS.isTagged(material)) category |= SIGN;
+			if (Tag.WALL_SIGNS.isTagged(material)) category |= WALL_SIGN;
+			if (shopContainers.contains(material)) category |= SHOP_CONTAINER;
+			if (
+				material.createBlockData().createBlockState() instanceof
+					Container
+			) {
+				category |= CONTAINER;
+			}
+			categories[material.ordinal()] = category;
+		}
+	}
+
+	/**
+	 * Any sign: standing, wall or hanging
+	 */
+	public boolean isSign(Material material) {
+		return (categories[material.ordinal()] & SIGN) != 0;
+	}
+
+	/**
+	 * Signs that attach to the side of a block, the only kind a shop uses
+	 */
+	public boolean isWallSign(Material material) {
+		return (categories[material.ordinal()] & WALL_SIGN) != 0;
+	}
+
+	public boolean isShopContainer(Material material) {
+		return (categories[material.ordinal()] & SHOP_CONTAINER) != 0;
+	}
+
+	/**
+	 * Any container, whether or not shops may currently be created on it
+	 */
+	public boolean isContainer(Material material) {
+		return (categories[material.ordinal()] & CONTAINER) != 0;
+	}
+}
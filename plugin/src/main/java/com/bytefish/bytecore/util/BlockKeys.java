@@ -0,0 +1,55 @@
+package com.bytefish.bytecore.util;
+
+public class BlockKeys {
+
+	/**
+	 * Packs block coordinates into a long (26 bits x, 26 bits z, 12 bits y)
+	 */
+	public static long pack(int x, int y, int z) {
+		return (
+			(((long) x & 0x3FFFFFF) << 38) |
+			(((long) z & 0x3FFFFFF) << 12) |
+			((long) y & 0xFFF)
+		);
+	}
+
+	public static int unpackX(long key) {
+		return (int) (key >> 38);
+	}
+
+	public static int unpackY(long key) {
+		return (int) ((key << 52) >> 52);
+	}
+
+	public static int unpackZ(long key) {
+		return (int) ((key << 26) >> 38);
+	}
+
+	/**
+	 * Packs chunk coordinates into a long
+	 */
+	public static long chunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	public static int chunkX(long chunkKey) {
+		return (int) (chunkKey >> 32);
+	}
+
+	public static int chunkZ(long chunkKey) {
+		return (int) chunkKey;
+	}
+
+	/**
+	 * Hashes a packed key for open-addressing tables. This is the MurmurHash3
+	 * finalizer, which spreads nearby coordinates apart.
+	 */
+	public static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
@@ -60,46 +60,19 @@ public class ShopUtils {
 	}
 
 	/**
-	 * Compares two items for equality, considering enchantments
+	 * Checks whether an item carries enchantments, including stored book enchantments
 	 */
-	public static boolean areItemsEqual(ItemStack item1, ItemStack item2) {
-		if (item1 == null || item2 == null) return false;
-		if (item1.getType() != item2.getType()) return false;
+	public static boolean hasEnchantments(ItemStack item) {
+		if (item == null) return false;
 
-		// Handle enchanted books specifically
-		if (item1.getType() == Material.ENCHANTED_BOOK) {
-			return compareEnchantedBooks(item1, item2);
+		if (item.getType() == Material.ENCHANTED_BOOK) {
+			if (
+				!(item.getItemMeta() instanceof EnchantmentStorageMeta meta)
+			) return false;
+			return !meta.getStoredEnchants().isEmpty();
 		}
 
-		// Compare regular items with enchantments
-		return compareRegularItems(item1, item2);
-	}
-
-	private static boolean compareEnchantedBooks(
-		ItemStack book1,
-		ItemStack book2
-	) {
-		EnchantmentStorageMeta meta1 =
-			(EnchantmentStorageMeta) book1.getItemMeta();
-		EnchantmentStorageMeta meta2 =
-			(EnchantmentStorageMeta) book2.getItemMeta();
-
-		if (meta1 == null || meta2 == null) return false;
-
-		Map<Enchantment, Integer> enchants1 = meta1.getStoredEnchants();
-		Map<Enchantment, Integer> enchants2 = meta2.getStoredEnchants();
-
-		return enchants1.equals(enchants2);
-	}
-
-	private static boolean compareRegularItems(
-		ItemStack item1,
-		ItemStack item2
-	) {
-		Map<Enchantment, Integer> enchants1 = item1.getEnchantments();
-		Map<Enchantment, Integer> enchants2 = item2.getEnchantments();
-
-		return enchants1.equals(enchants2);
+		return !item.getEnchantments().isEmpty();
 	}
 
 	/**
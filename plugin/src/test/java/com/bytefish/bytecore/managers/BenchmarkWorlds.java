@@ -0,0 +1,135 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import com.bytefish.bytecore.util.BlockKeys;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Just enough of a server for the registry benchmarks: named worlds that
+ * {@link Bukkit#getWorld(String)} resolves, and shops placed in them.
+ */
+final class BenchmarkWorlds {
+
+	private static final Map<String, World> WORLDS = new ConcurrentHashMap<>();
+
+	private BenchmarkWorlds() {}
+
+	static synchronized World world(String name) {
+		if (Bukkit.getServer() == null) install();
+		return WORLDS.computeIfAbsent(name, BenchmarkWorlds::newWorld);
+	}
+
+	/**
+	 * Shops at distinct random blocks of a square spread blocks wide, centred
+	 * on the origin, between y 64 and 79
+	 */
+	static List<Shop> shops(World world, int count, int spread, long seed) {
+		Random random = new Random(seed);
+		ItemStack selling = new ItemStack(Material.DIAMOND);
+		ItemStack price = new ItemStack(Material.EMERALD);
+		UUID owner = new UUID(seed, seed);
+		Set<Long> taken = new HashSet<>();
+		List<Shop> shops = new ArrayList<>(count);
+		while (shops.size() < count) {
+			int x = random.nextInt(spread) - spread / 2;
+			int y = 64 + random.nextInt(16);
+			int z = random.nextInt(spread) - spread / 2;
+			if (!taken.add(BlockKeys.pack(x, y, z))) continue;
+			shops.add(
+				new Shop(
+					new Location(world, x, y, z),
+					owner,
+					"Benchmark",
+					selling,
+					1,
+					price,
+					1
+				)
+			);
+		}
+		return shops;
+	}
+
+	private static World newWorld(String name) {
+		UUID id = UUID.nameUUIDFromBytes(name.getBytes());
+		return stub(World.class, (method, args) ->
+			switch (method) {
+				case "getName", "toString" -> name;
+				case "getUID" -> id;
+				default -> null;
+			}
+		);
+	}
+
+	private static void install() {
+		Server server = stub(Server.class, (method, args) ->
+			switch (method) {
+				case "getWorld" -> args[0] instanceof String name
+					? WORLDS.get(name)
+					: null;
+				case "getLogger" -> Logger.getLogger("Benchmark");
+				default -> null;
+			}
+		);
+		// Bukkit.setServer would log build info this stub doesn't have
+		try {
+			Field field = Bukkit.class.getDeclaredField("server");
+			field.setAccessible(true);
+			field.set(null, server);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot install a stub server", e);
+		}
+	}
+
+	/**
+	 * An interface whose methods answer from a function of the method name,
+	 * falling back to the zero value of primitive return types
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(
+		Class<T> type,
+		BiFunction<String, Object[], Object> answers
+	) {
+		return (T) Proxy.newProxyInstance(
+			type.getClassLoader(),
+			new Class<?>[] { type },
+			(proxy, method, args) -> {
+				switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						Object answer = answers.apply(method.getName(), args);
+						Class<?> returns = method.getReturnType();
+						if (
+							answer != null ||
+							!returns.isPrimitive() ||
+							returns == void.class
+						) {
+							return answer;
+						}
+						return Array.get(Array.newInstance(returns, 1), 0);
+				}
+			}
+		);
+	}
+}
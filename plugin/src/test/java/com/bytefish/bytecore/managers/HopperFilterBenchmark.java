@@ -0,0 +1,62 @@
+package com.bytefish.bytecore.managers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The chunk check every InventoryMoveItemEvent goes through before a
+ * holder is looked at, with hoppers spread over the same area as the shops
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HopperFilterBenchmark {
+
+	private static final int HOPPERS = 1024;
+	private static final int SPREAD = 2048;
+
+	@Param({ "0", "1", "1000" })
+	public int shops;
+
+	private World world;
+	private ShopRegistry registry;
+	private int[] hopperX;
+	private int[] hopperZ;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		world = BenchmarkWorlds.world("world");
+		registry = new ShopRegistry();
+		registry.replaceAll(BenchmarkWorlds.shops(world, shops, SPREAD, 1L));
+
+		Random random = new Random(2L);
+		hopperX = new int[HOPPERS];
+		hopperZ = new int[HOPPERS];
+		for (int i = 0; i < HOPPERS; i++) {
+			hopperX[i] = random.nextInt(SPREAD) - SPREAD / 2;
+			hopperZ[i] = random.nextInt(SPREAD) - SPREAD / 2;
+		}
+	}
+
+	@Benchmark
+	public boolean hasShopsNear() {
+		int i = next++ & (HOPPERS - 1);
+		return registry.hasShopsNear(world, hopperX[i], hopperZ[i]);
+	}
+}
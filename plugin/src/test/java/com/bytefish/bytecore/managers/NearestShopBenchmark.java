@@ -0,0 +1,105 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of /api/shops/nearest's search against sorting every shop by
+ * distance, from random points in the area the shops cover
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestShopBenchmark {
+
+	private static final int ORIGINS = 1024;
+	private static final int SPREAD = 16384;
+	private static final int LIMIT = 10;
+
+	@Param({ "10000", "100000" })
+	public int shops;
+
+	private World world;
+	private ShopRegistry registry;
+	private List<Shop> placed;
+	private double[] originX;
+	private double[] originZ;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		world = BenchmarkWorlds.world("world");
+		placed = BenchmarkWorlds.shops(world, shops, SPREAD, 1L);
+		registry = new ShopRegistry();
+		registry.replaceAll(placed);
+
+		Random random = new Random(2L);
+		originX = new double[ORIGINS];
+		originZ = new double[ORIGINS];
+		for (int i = 0; i < ORIGINS; i++) {
+			originX[i] = random.nextDouble() * SPREAD - SPREAD / 2.0;
+			originZ[i] = random.nextDouble() * SPREAD - SPREAD / 2.0;
+		}
+	}
+
+	@Benchmark
+	public List<ShopRegistry.Nearby> nearest() {
+		int i = next++ & (ORIGINS - 1);
+		return registry.nearest(
+			world,
+			originX[i],
+			64,
+			originZ[i],
+			LIMIT,
+			Double.POSITIVE_INFINITY,
+			null
+		);
+	}
+
+	@Benchmark
+	public List<ShopRegistry.Nearby> within64() {
+		int i = next++ & (ORIGINS - 1);
+		return registry.within(world, originX[i], 64, originZ[i], 64, null);
+	}
+
+	@Benchmark
+	public List<ShopRegistry.Nearby> sortAll() {
+		int i = next++ & (ORIGINS - 1);
+		double x = originX[i];
+		double z = originZ[i];
+		return placed
+			.stream()
+			.map(shop -> {
+				double dx = shop.getBlockX() + 0.5 - x;
+				double dy = shop.getBlockY() + 0.5 - 64;
+				double dz = shop.getBlockZ() + 0.5 - z;
+				return new ShopRegistry.Nearby(
+					shop,
+					dx * dx + dy * dy + dz * dz
+				);
+			})
+			.sorted(
+				Comparator.comparingDouble(ShopRegistry.Nearby::distanceSquared)
+			)
+			.limit(LIMIT)
+			.toList();
+	}
+}
@@ -0,0 +1,98 @@
+package com.bytefish.bytecore.managers;
+
+import com.bytefish.bytecore.models.Shop;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Packed-key registry lookups against the {@code Map<Location, Shop>} it
+ * replaced. Half of the probes hit a shop and half miss, which is what
+ * hoppers and block events mostly see.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopRegistryBenchmark {
+
+	private static final int PROBES = 1024;
+	private static final int SPREAD = 4096;
+
+	@Param({ "1000", "100000" })
+	public int shops;
+
+	private World world;
+	private ShopRegistry registry;
+	private Map<Location, Shop> byLocation;
+	private Location[] probes;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		world = BenchmarkWorlds.world("world");
+		List<Shop> placed = BenchmarkWorlds.shops(world, shops, SPREAD, 1L);
+		registry = new ShopRegistry();
+		registry.replaceAll(placed);
+		byLocation = new HashMap<>();
+		for (Shop shop : placed) {
+			byLocation.put(shop.getLocation(), shop);
+		}
+
+		// Shops sit at y 64 and up, so the odd probes never hit
+		Random random = new Random(2L);
+		probes = new Location[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = i % 2 == 0
+				? placed.get(random.nextInt(placed.size())).getLocation()
+				: new Location(
+					world,
+					random.nextInt(SPREAD) - SPREAD / 2,
+					0,
+					random.nextInt(SPREAD) - SPREAD / 2
+				);
+		}
+	}
+
+	@Benchmark
+	public Shop registryByCoordinates() {
+		Location probe = nextProbe();
+		return registry.get(
+			world,
+			probe.getBlockX(),
+			probe.getBlockY(),
+			probe.getBlockZ()
+		);
+	}
+
+	@Benchmark
+	public Shop registryByLocation() {
+		return registry.get(nextProbe());
+	}
+
+	@Benchmark
+	public Shop locationMap() {
+		return byLocation.get(nextProbe());
+	}
+
+	private Location nextProbe() {
+		return probes[next++ & (PROBES - 1)];
+	}
+}